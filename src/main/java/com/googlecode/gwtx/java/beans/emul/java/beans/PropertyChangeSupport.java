@@ -25,13 +25,23 @@ package java.beans;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Map;
 
 public class PropertyChangeSupport implements Serializable {
 
-    private transient List<PropertyChangeListener> globalListeners = new ArrayList<PropertyChangeListener>();
+    private static final PropertyChangeListener[] NO_LISTENERS = new PropertyChangeListener[0];
 
-    private HashMap<String, PropertyChangeSupport> children = new HashMap<String, PropertyChangeSupport>();
+    /*
+     * Listeners are kept in arrays that are replaced on registration, so
+     * that firing an event doesn't copy the listeners
+     */
+    private transient PropertyChangeListener[] globalListeners = NO_LISTENERS;
+
+    /*
+     * Listeners arrays by property name. Most beans never get a listener, so
+     * the map is only allocated on the first registration.
+     */
+    private transient HashMap<String, PropertyChangeListener[]> namedListeners;
 
     private Object source;
 
@@ -44,26 +54,34 @@ public class PropertyChangeSupport implements Serializable {
 
     public void firePropertyChange(String propertyName, Object oldValue,
             Object newValue) {
+        // Don't build the event when nobody listens
+        if (!hasListeners(propertyName)) {
+            return;
+        }
         PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
                 oldValue, newValue);
-        doFirePropertyChange(event);
+        firePropertyChange(event);
     }
 
     public void fireIndexedPropertyChange(String propertyName, int index,
             Object oldValue, Object newValue) {
+        if (!hasListeners(propertyName)) {
+            return;
+        }
 
         // nulls and equals check done in doFire...
-        doFirePropertyChange(new IndexedPropertyChangeEvent(source,
+        firePropertyChange(new IndexedPropertyChangeEvent(source,
                 propertyName, oldValue, newValue, index));
     }
 
     public synchronized void removePropertyChangeListener(String propertyName,
             PropertyChangeListener listener) {
         if ((propertyName != null) && (listener != null)) {
-            PropertyChangeSupport listeners = children.get(propertyName);
+            PropertyChangeListener[] listeners = getNamedListeners(propertyName);
+            PropertyChangeListener[] result = remove(listeners, listener);
 
-            if (listeners != null) {
-                listeners.removePropertyChangeListener(listener);
+            if (result != listeners) {
+                setNamedListeners(propertyName, result);
             }
         }
     }
@@ -71,44 +89,38 @@ public class PropertyChangeSupport implements Serializable {
     public synchronized void addPropertyChangeListener(String propertyName,
             PropertyChangeListener listener) {
         if ((listener != null) && (propertyName != null)) {
-            PropertyChangeSupport listeners = children.get(propertyName);
-
-            if (listeners == null) {
-                listeners = new PropertyChangeSupport(source);
-                children.put(propertyName, listeners);
-            }
-
             // RI compatibility
             if (listener instanceof PropertyChangeListenerProxy) {
                 PropertyChangeListenerProxy proxy = (PropertyChangeListenerProxy) listener;
 
-                listeners
-                        .addPropertyChangeListener(new PropertyChangeListenerProxy(
-                                proxy.getPropertyName(),
-                                (PropertyChangeListener) proxy.getListener()));
-            } else {
-                listeners.addPropertyChangeListener(listener);
+                listener = new PropertyChangeListenerProxy(
+                        proxy.getPropertyName(),
+                        (PropertyChangeListener) proxy.getListener());
             }
+            setNamedListeners(propertyName, add(
+                    getNamedListeners(propertyName), listener));
         }
     }
 
     public synchronized PropertyChangeListener[] getPropertyChangeListeners(
             String propertyName) {
-        PropertyChangeSupport listeners = null;
-
-        if (propertyName != null) {
-            listeners = children.get(propertyName);
+        if (propertyName == null) {
+            return new PropertyChangeListener[0];
         }
-
-        return (listeners == null) ? new PropertyChangeListener[0]
-                : listeners.getPropertyChangeListeners();
+        PropertyChangeListener[] listeners = getNamedListeners(propertyName);
+        PropertyChangeListener[] result = new PropertyChangeListener[listeners.length];
+        System.arraycopy(listeners, 0, result, 0, listeners.length);
+        return result;
     }
 
     public void firePropertyChange(String propertyName, boolean oldValue,
             boolean newValue) {
+        if (oldValue == newValue || !hasListeners(propertyName)) {
+            return;
+        }
         PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
                 oldValue, newValue);
-        doFirePropertyChange(event);
+        firePropertyChange(event);
     }
 
     public void fireIndexedPropertyChange(String propertyName, int index,
@@ -122,9 +134,12 @@ public class PropertyChangeSupport implements Serializable {
 
     public void firePropertyChange(String propertyName, int oldValue,
             int newValue) {
+        if (oldValue == newValue || !hasListeners(propertyName)) {
+            return;
+        }
         PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
                 oldValue, newValue);
-        doFirePropertyChange(event);
+        firePropertyChange(event);
     }
 
     public void fireIndexedPropertyChange(String propertyName, int index,
@@ -137,15 +152,11 @@ public class PropertyChangeSupport implements Serializable {
     }
 
     public synchronized boolean hasListeners(String propertyName) {
-        if(globalListeners.size() > 0){
+        if(globalListeners.length > 0){
             return true;
         }
-        boolean result = false;
-        if (propertyName != null) {
-            PropertyChangeSupport listeners = children.get(propertyName);
-            result = (listeners != null && listeners.hasListeners(propertyName));
-        }
-        return result;
+        return propertyName != null
+                && getNamedListeners(propertyName).length > 0;
     }
 
     public synchronized void removePropertyChangeListener(
@@ -158,7 +169,7 @@ public class PropertyChangeSupport implements Serializable {
 
             removePropertyChangeListener(name, lst);
         } else {
-            globalListeners.remove(listener);
+            globalListeners = remove(globalListeners, listener);
         }
     }
 
@@ -171,21 +182,23 @@ public class PropertyChangeSupport implements Serializable {
                     .getListener();
             addPropertyChangeListener(name, lst);
         } else if(listener != null){
-            globalListeners.add(listener);
+            globalListeners = add(globalListeners, listener);
         }
     }
 
     public synchronized PropertyChangeListener[] getPropertyChangeListeners() {
-        ArrayList<PropertyChangeListener> result = new ArrayList<PropertyChangeListener>(
-                globalListeners);
-        for (String propertyName : children.keySet()) {
-            PropertyChangeSupport namedListener = children
-                    .get(propertyName);
-            PropertyChangeListener[] listeners = namedListener
-                    .getPropertyChangeListeners();
-            for (int i = 0; i < listeners.length; i++) {
-                result.add(new PropertyChangeListenerProxy(propertyName,
-                        listeners[i]));
+        ArrayList<PropertyChangeListener> result = new ArrayList<PropertyChangeListener>();
+        for (int i = 0; i < globalListeners.length; i++) {
+            result.add(globalListeners[i]);
+        }
+        if (namedListeners != null) {
+            for (Map.Entry<String, PropertyChangeListener[]> entry : namedListeners
+                    .entrySet()) {
+                PropertyChangeListener[] listeners = entry.getValue();
+                for (int j = 0; j < listeners.length; j++) {
+                    result.add(new PropertyChangeListenerProxy(entry.getKey(),
+                            listeners[j]));
+                }
             }
         }
         return result.toArray(new PropertyChangeListener[0]);
@@ -222,6 +235,10 @@ public class PropertyChangeSupport implements Serializable {
 //        } while (listener != null);
 //    }
 
+    /*
+     * As in the JDK, the other fire methods go through this one, so that a
+     * subclass can intercept all events
+     */
     public void firePropertyChange(PropertyChangeEvent event) {
         doFirePropertyChange(event);
     }
@@ -250,9 +267,8 @@ public class PropertyChangeSupport implements Serializable {
             return;
         }
 
-        // Collect up the global listeners
-        PropertyChangeListener[] gListeners = globalListeners
-                .toArray(new PropertyChangeListener[0]);
+        // The listeners array is never modified, registration replaces it
+        PropertyChangeListener[] gListeners = globalListeners;
         // Fire the events for global listeners
         for (int i = 0; i < gListeners.length; i++) {
             gListeners[i].propertyChange(event);
@@ -260,13 +276,63 @@ public class PropertyChangeSupport implements Serializable {
 
         // Fire the events for the property specific listeners if any
         if (event.getPropertyName() != null) {
-            PropertyChangeSupport namedListener = children
-                    .get(event.getPropertyName());
-            if (namedListener != null) {
-                namedListener.firePropertyChange(event);
+            PropertyChangeListener[] nListeners = getNamedListeners(event
+                    .getPropertyName());
+            for (int i = 0; i < nListeners.length; i++) {
+                nListeners[i].propertyChange(event);
+            }
+        }
+
+    }
+
+    private PropertyChangeListener[] getNamedListeners(String propertyName) {
+        if (namedListeners != null) {
+            PropertyChangeListener[] listeners = namedListeners.get(propertyName);
+            if (listeners != null) {
+                return listeners;
             }
         }
+        return NO_LISTENERS;
+    }
 
+    /**
+     * Replace the listeners of a property, or drop the property if it has no
+     * more listeners. The caller must hold the lock.
+     */
+    private void setNamedListeners(String propertyName,
+            PropertyChangeListener[] listeners) {
+        if (listeners.length > 0) {
+            if (namedListeners == null) {
+                namedListeners = new HashMap<String, PropertyChangeListener[]>();
+            }
+            namedListeners.put(propertyName, listeners);
+        } else if (namedListeners != null) {
+            namedListeners.remove(propertyName);
+        }
+    }
+
+    private static PropertyChangeListener[] add(
+            PropertyChangeListener[] listeners, PropertyChangeListener listener) {
+        PropertyChangeListener[] result = new PropertyChangeListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, result, 0, listeners.length);
+        result[listeners.length] = listener;
+        return result;
+    }
+
+    private static PropertyChangeListener[] remove(
+            PropertyChangeListener[] listeners, PropertyChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                if (listeners.length == 1) {
+                    return NO_LISTENERS;
+                }
+                PropertyChangeListener[] result = new PropertyChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, result, 0, i);
+                System.arraycopy(listeners, i + 1, result, i, result.length - i);
+                return result;
+            }
+        }
+        return listeners;
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PropertyChangeSupport that coalesces the events fired during a bulk update. While a batch is open, events are
+ * queued, one per property : the old value of the first event is kept, the other fields come from the last one. The
+ * queued events are delivered when the outermost batch ends, in the order the properties first changed.
+ * <p>
+ * Indexed events and events without a property name are queued as they are. Delivery is synchronous : GWT client
+ * code may end the batch from a <code>DeferredCommand</code> to deliver the events on the next event loop tick.
+ *
+ * @author ndeloof
+ */
+public class BatchingPropertyChangeSupport
+    extends PropertyChangeSupport
+{
+    private static final long serialVersionUID = -8620977304445512692L;
+
+    private volatile int batchDepth;
+
+    private List<PropertyChangeEvent> pendingEvents;
+
+    public BatchingPropertyChangeSupport( Object sourceBean )
+    {
+        super( sourceBean );
+    }
+
+    /**
+     * Queue events until the matching {@link #endBatch()}. Batches can be nested, and are shared by all threads
+     * firing events on this support.
+     */
+    public synchronized void beginBatch()
+    {
+        batchDepth++;
+    }
+
+    /**
+     * End a batch, and deliver the queued events if it is the outermost one. A property that changed back to its
+     * first old value doesn't fire. If a listener throws an exception, the remaining events are still delivered, then
+     * the first exception is rethrown.
+     * @throws IllegalStateException no batch has been started
+     */
+    public void endBatch()
+    {
+        PropertyChangeEvent[] events;
+        synchronized ( this )
+        {
+            if ( batchDepth == 0 )
+            {
+                throw new IllegalStateException( "No batch in progress" );
+            }
+            batchDepth--;
+            if ( batchDepth > 0 || pendingEvents == null )
+            {
+                return;
+            }
+            events = pendingEvents.toArray( new PropertyChangeEvent[pendingEvents.size()] );
+            pendingEvents = null;
+        }
+        RuntimeException failure = null;
+        for ( PropertyChangeEvent event : events )
+        {
+            try
+            {
+                super.firePropertyChange( event );
+            }
+            catch ( RuntimeException e )
+            {
+                if ( failure == null )
+                {
+                    failure = e;
+                }
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    public void firePropertyChange( PropertyChangeEvent event )
+    {
+        if ( batchDepth == 0 || !queue( event ) )
+        {
+            super.firePropertyChange( event );
+        }
+    }
+
+    /**
+     * Queue the event, or merge it with the queued event of the same property
+     * @return <code>false</code> if the batch has ended
+     */
+    private synchronized boolean queue( PropertyChangeEvent event )
+    {
+        if ( batchDepth == 0 )
+        {
+            return false;
+        }
+        if ( pendingEvents == null )
+        {
+            pendingEvents = new ArrayList<PropertyChangeEvent>();
+        }
+        String name = event.getPropertyName();
+        if ( name != null && !( event instanceof IndexedPropertyChangeEvent ) )
+        {
+            for ( int i = 0; i < pendingEvents.size(); i++ )
+            {
+                PropertyChangeEvent pending = pendingEvents.get( i );
+                if ( name.equals( pending.getPropertyName() ) && !( pending instanceof IndexedPropertyChangeEvent ) )
+                {
+                    PropertyChangeEvent merged =
+                        new PropertyChangeEvent( event.getSource(), name, pending.getOldValue(), event.getNewValue() );
+                    merged.setPropagationId( event.getPropagationId() );
+                    pendingEvents.set( i, merged );
+                    return true;
+                }
+            }
+        }
+        pendingEvents.add( event );
+        return true;
+    }
+}
@@ -0,0 +1,1008 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact positional encoding for introspection-enabled beans. Property values are written in the order of the
+ * BeanInfo property descriptors, without property names, behind a hash of the bean schema : the names and types of
+ * the properties, in order. Property indexes are stable as the generator sorts properties by name, so an encoded
+ * bean can be decoded by another build or on the JVM as long as the schema hash matches.
+ * <p>
+ * The encoding is a String, as used by browser local storage and text transports. Values are comma-terminated
+ * tokens, integral numbers are written in radix 36 and <code>~</code> stands for <code>null</code>.
+ * <p>
+ * Supported property types are primitives and their wrappers, <code>String</code>, <code>Date</code>, enums (encoded
+ * by name), <code>String[]</code>, <code>Object[]</code>, <code>int[]</code>, <code>long[]</code>,
+ * <code>double[]</code> and <code>boolean[]</code> arrays, nested introspection-enabled beans (encoded with the
+ * declared property type schema, which is part of the schema hash), and <code>Object</code> or collection properties
+ * holding Strings, numbers, Booleans or Lists of them. In such properties Integers and Longs keep their type and
+ * exact value, other numbers are decoded as Doubles. Object graphs must not have cycles.
+ *
+ * @author ndeloof
+ */
+public class BeanCodec
+{
+    private static final int INT = 0;
+
+    private static final int CHAR = 1;
+
+    private static final int LONG = 2;
+
+    private static final int DOUBLE = 3;
+
+    private static final int BOOLEAN = 4;
+
+    private static final int STRING = 5;
+
+    private static final int BOXED = 6;
+
+    private static final int DATE = 7;
+
+    private static final int GENERIC = 8;
+
+    private static final int BEAN = 9;
+
+    private static final int ENUM = 10;
+
+    private static final int ARRAY = 11;
+
+    private static final String NULL = "~";
+
+    private static final char FULL = 'F';
+
+    private static final char CHANGES = 'D';
+
+    private static Registry<Class<?>, Schema> schemas = new Registry<Class<?>, Schema>();
+
+    private BeanCodec()
+    {
+        super();
+    }
+
+    /**
+     * @return the hash of the bean class properties names and types, in BeanInfo order
+     */
+    public static int getSchemaHash( Class<?> beanClass )
+        throws IntrospectionException
+    {
+        return getSchema( beanClass ).hash;
+    }
+
+    /**
+     * @return the encoded values of all bean properties
+     */
+    public static String encode( Class<?> beanClass, Object bean )
+        throws IntrospectionException
+    {
+        Schema schema = getSchema( beanClass );
+        StringBuilder out = new StringBuilder();
+        out.append( FULL );
+        writeInt( schema.hash, out );
+        out.append( ',' );
+        writeBean( schema, bean, out );
+        return out.toString();
+    }
+
+    /**
+     * Set the bean writable properties from the encoded values
+     * @return the bean
+     * @throws IllegalArgumentException the encoded bean has another schema, or is invalid
+     */
+    public static <T> T decode( Class<T> beanClass, String encoded, T bean )
+        throws IntrospectionException
+    {
+        Schema schema = getSchema( beanClass );
+        Parser parser = new Parser( encoded );
+        parser.header( FULL, schema.hash );
+        readBean( parser, schema, bean );
+        parser.end();
+        return bean;
+    }
+
+    /**
+     * @return the encoded values of the changed properties only, for a bean delta
+     * @see GwtIntrospector#diff(Class, Object, Object)
+     */
+    public static String encodeChanges( Class<?> beanClass, Object bean, BeanDiff changes )
+        throws IntrospectionException
+    {
+        Schema schema = getSchema( beanClass );
+        StringBuilder out = new StringBuilder();
+        out.append( CHANGES );
+        writeInt( schema.hash, out );
+        out.append( ',' );
+        writeInt( schema.descriptors.length, out );
+        out.append( ',' );
+        int count = 0;
+        for ( int i = 0; i < schema.descriptors.length; i++ )
+        {
+            if ( changes.isChanged( i ) )
+            {
+                count++;
+            }
+        }
+        writeInt( count, out );
+        out.append( ',' );
+        for ( int i = 0; i < schema.descriptors.length; i++ )
+        {
+            if ( changes.isChanged( i ) )
+            {
+                writeInt( i, out );
+                out.append( ',' );
+                writeProperty( schema, i, bean, out );
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Set the bean properties from encoded changes
+     * @return the bean
+     * @throws IllegalArgumentException the encoded changes have another schema, or are invalid
+     */
+    public static <T> T applyChanges( Class<T> beanClass, String encoded, T bean )
+        throws IntrospectionException
+    {
+        Schema schema = getSchema( beanClass );
+        Parser parser = new Parser( encoded );
+        parser.header( CHANGES, schema.hash );
+        if ( parser.readInt() != schema.descriptors.length )
+        {
+            throw new IllegalArgumentException( "Encoded changes don't match the " + beanClass.getName() + " schema" );
+        }
+        int count = parser.readInt();
+        for ( int n = 0; n < count; n++ )
+        {
+            int index = parser.readInt();
+            if ( index < 0 || index >= schema.descriptors.length )
+            {
+                throw new IllegalArgumentException( "Invalid property index " + index );
+            }
+            readProperty( parser, schema, index, bean );
+        }
+        parser.end();
+        return bean;
+    }
+
+    private static Schema getSchema( Class<?> beanClass )
+        throws IntrospectionException
+    {
+        Schema schema = schemas.get( beanClass );
+        if ( schema == null )
+        {
+            schema = schemas.putIfAbsent( beanClass, new Schema( beanClass, GwtIntrospector.__getBeanInfo( beanClass ) ) );
+        }
+        return schema;
+    }
+
+    private static int getKind( Class<?> type )
+    {
+        if ( type == Integer.TYPE || type == Short.TYPE || type == Byte.TYPE )
+        {
+            return INT;
+        }
+        if ( type == Character.TYPE )
+        {
+            return CHAR;
+        }
+        if ( type == Long.TYPE )
+        {
+            return LONG;
+        }
+        if ( type == Double.TYPE || type == Float.TYPE )
+        {
+            return DOUBLE;
+        }
+        if ( type == Boolean.TYPE )
+        {
+            return BOOLEAN;
+        }
+        if ( type == String.class )
+        {
+            return STRING;
+        }
+        if ( type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+            || type == Double.class || type == Float.class || type == Boolean.class || type == Character.class )
+        {
+            return BOXED;
+        }
+        if ( type == Date.class )
+        {
+            return DATE;
+        }
+        if ( type == Object.class || type == List.class || type == Collection.class || type == ArrayList.class )
+        {
+            return GENERIC;
+        }
+        if ( type != null && type.isEnum() )
+        {
+            return ENUM;
+        }
+        if ( type != null && type.isArray() )
+        {
+            return ARRAY;
+        }
+        return BEAN;
+    }
+
+    // ----- writer
+
+    private static void writeBean( Schema schema, Object bean, StringBuilder out )
+        throws IntrospectionException
+    {
+        for ( int i = 0; i < schema.descriptors.length; i++ )
+        {
+            writeProperty( schema, i, bean, out );
+        }
+    }
+
+    private static void writeProperty( Schema schema, int index, Object bean, StringBuilder out )
+        throws IntrospectionException
+    {
+        GwtPropertyDescriptor descriptor = schema.descriptors[index];
+        if ( descriptor == null || descriptor.getReadMethod() == null )
+        {
+            out.append( NULL ).append( ',' );
+            return;
+        }
+        switch ( schema.kinds[index] )
+        {
+            case INT:
+            case CHAR:
+                writeInt( descriptor.getInt( bean ), out );
+                break;
+            case LONG:
+                writeLong( descriptor.getLong( bean ), out );
+                break;
+            case DOUBLE:
+                if ( descriptor.getPropertyType() == Float.TYPE )
+                {
+                    out.append( (float) descriptor.getDouble( bean ) );
+                }
+                else
+                {
+                    out.append( descriptor.getDouble( bean ) );
+                }
+                break;
+            case BOOLEAN:
+                out.append( descriptor.getBoolean( bean ) ? '1' : '0' );
+                break;
+            default:
+                writeObject( schema.kinds[index], descriptor, descriptor.getValue( bean ), out );
+                return;
+        }
+        out.append( ',' );
+    }
+
+    private static void writeObject( int kind, GwtPropertyDescriptor descriptor, Object value, StringBuilder out )
+        throws IntrospectionException
+    {
+        if ( value == null )
+        {
+            out.append( NULL ).append( ',' );
+            return;
+        }
+        switch ( kind )
+        {
+            case STRING:
+                writeString( (String) value, out );
+                break;
+            case BOXED:
+                if ( value instanceof Double || value instanceof Float )
+                {
+                    out.append( value.toString() );
+                }
+                else if ( value instanceof Boolean )
+                {
+                    out.append( ( (Boolean) value ).booleanValue() ? '1' : '0' );
+                }
+                else if ( value instanceof Character )
+                {
+                    writeInt( ( (Character) value ).charValue(), out );
+                }
+                else if ( value instanceof Long )
+                {
+                    writeLong( ( (Long) value ).longValue(), out );
+                }
+                else
+                {
+                    writeInt( ( (Number) value ).intValue(), out );
+                }
+                break;
+            case DATE:
+                writeLong( ( (Date) value ).getTime(), out );
+                break;
+            case ENUM:
+                writeString( ( (Enum<?>) value ).name(), out );
+                break;
+            case ARRAY:
+                writeArray( descriptor, value, out );
+                return;
+            case GENERIC:
+                writeGeneric( descriptor, value, out );
+                return;
+            default:
+                // nested bean, encoded with the declared type schema
+                out.append( '{' ).append( ',' );
+                writeBean( getNestedSchema( descriptor ), value, out );
+                return;
+        }
+        out.append( ',' );
+    }
+
+    /**
+     * Write a value with a type tag
+     */
+    private static void writeGeneric( GwtPropertyDescriptor descriptor, Object value, StringBuilder out )
+    {
+        if ( value == null )
+        {
+            out.append( NULL );
+        }
+        else if ( value instanceof String )
+        {
+            out.append( 's' );
+            writeString( (String) value, out );
+        }
+        else if ( value instanceof Integer )
+        {
+            out.append( 'i' );
+            writeInt( ( (Integer) value ).intValue(), out );
+        }
+        else if ( value instanceof Long )
+        {
+            // a double can't hold all long values
+            out.append( 'l' );
+            writeLong( ( (Long) value ).longValue(), out );
+        }
+        else if ( value instanceof Number )
+        {
+            out.append( 'n' ).append( ( (Number) value ).doubleValue() );
+        }
+        else if ( value instanceof Boolean )
+        {
+            out.append( ( (Boolean) value ).booleanValue() ? 't' : 'f' );
+        }
+        else if ( value instanceof Collection )
+        {
+            Collection<?> collection = (Collection<?>) value;
+            out.append( '[' );
+            writeInt( collection.size(), out );
+            out.append( ',' );
+            for ( Object element : collection )
+            {
+                writeGeneric( descriptor, element, out );
+            }
+            return;
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Cannot encode " + descriptor.getName() + " value of "
+                + value.getClass().getName() );
+        }
+        out.append( ',' );
+    }
+
+    /**
+     * Write the array length, then its elements. Arrays can't be created for any component type without reflection,
+     * so only a fixed set of array types is supported.
+     */
+    private static void writeArray( GwtPropertyDescriptor descriptor, Object value, StringBuilder out )
+    {
+        Class<?> type = descriptor.getPropertyType();
+        if ( type == String[].class )
+        {
+            String[] array = (String[]) value;
+            writeInt( array.length, out );
+            out.append( ',' );
+            for ( String element : array )
+            {
+                if ( element == null )
+                {
+                    out.append( NULL );
+                }
+                else
+                {
+                    writeString( element, out );
+                }
+                out.append( ',' );
+            }
+        }
+        else if ( type == int[].class )
+        {
+            int[] array = (int[]) value;
+            writeInt( array.length, out );
+            out.append( ',' );
+            for ( int element : array )
+            {
+                writeInt( element, out );
+                out.append( ',' );
+            }
+        }
+        else if ( type == long[].class )
+        {
+            long[] array = (long[]) value;
+            writeInt( array.length, out );
+            out.append( ',' );
+            for ( long element : array )
+            {
+                writeLong( element, out );
+                out.append( ',' );
+            }
+        }
+        else if ( type == double[].class )
+        {
+            double[] array = (double[]) value;
+            writeInt( array.length, out );
+            out.append( ',' );
+            for ( double element : array )
+            {
+                out.append( element ).append( ',' );
+            }
+        }
+        else if ( type == boolean[].class )
+        {
+            boolean[] array = (boolean[]) value;
+            writeInt( array.length, out );
+            out.append( ',' );
+            for ( boolean element : array )
+            {
+                out.append( element ? '1' : '0' ).append( ',' );
+            }
+        }
+        else if ( type == Object[].class )
+        {
+            Object[] array = (Object[]) value;
+            writeInt( array.length, out );
+            out.append( ',' );
+            for ( Object element : array )
+            {
+                writeGeneric( descriptor, element, out );
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Cannot encode property " + descriptor.getName() + " of type "
+                + type.getName() );
+        }
+    }
+
+    /**
+     * Escape separators, and a leading null marker
+     */
+    private static void writeString( String value, StringBuilder out )
+    {
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == ',' || c == '\\' || ( i == 0 && c == '~' ) )
+            {
+                out.append( '\\' );
+            }
+            out.append( c );
+        }
+    }
+
+    /**
+     * Write an int in radix 36. Long arithmetic is emulated in GWT, so int values don't use {@link #writeLong}.
+     */
+    private static void writeInt( int value, StringBuilder out )
+    {
+        if ( value == 0 )
+        {
+            out.append( '0' );
+            return;
+        }
+        char[] digits = new char[7];
+        int pos = digits.length;
+        // use negative values, so that Integer.MIN_VALUE doesn't overflow
+        int remaining = value < 0 ? value : -value;
+        while ( remaining != 0 )
+        {
+            digits[--pos] = Character.forDigit( -( remaining % 36 ), 36 );
+            remaining /= 36;
+        }
+        if ( value < 0 )
+        {
+            out.append( '-' );
+        }
+        out.append( digits, pos, digits.length - pos );
+    }
+
+    /**
+     * Write a long in radix 36
+     */
+    private static void writeLong( long value, StringBuilder out )
+    {
+        if ( value == 0 )
+        {
+            out.append( '0' );
+            return;
+        }
+        char[] digits = new char[14];
+        int pos = digits.length;
+        // use negative values, so that Long.MIN_VALUE doesn't overflow
+        long remaining = value < 0 ? value : -value;
+        while ( remaining != 0 )
+        {
+            digits[--pos] = Character.forDigit( (int) -( remaining % 36 ), 36 );
+            remaining /= 36;
+        }
+        if ( value < 0 )
+        {
+            out.append( '-' );
+        }
+        out.append( digits, pos, digits.length - pos );
+    }
+
+    private static Schema getNestedSchema( GwtPropertyDescriptor descriptor )
+    {
+        try
+        {
+            return getSchema( descriptor.getPropertyType() );
+        }
+        catch ( IntrospectionException e )
+        {
+            throw new IllegalArgumentException( "Cannot encode property " + descriptor.getName() + " of type "
+                + descriptor.getPropertyType().getName() );
+        }
+    }
+
+    // ----- reader
+
+    private static void readBean( Parser parser, Schema schema, Object bean )
+        throws IntrospectionException
+    {
+        for ( int i = 0; i < schema.descriptors.length; i++ )
+        {
+            readProperty( parser, schema, i, bean );
+        }
+    }
+
+    /**
+     * Read a property value, and set it if the property is writable. A <code>null</code> value is ignored for
+     * primitive properties.
+     * @param bean the bean to update, or <code>null</code> to skip the value
+     */
+    private static void readProperty( Parser parser, Schema schema, int index, Object bean )
+        throws IntrospectionException
+    {
+        GwtPropertyDescriptor descriptor = schema.descriptors[index];
+        int kind = schema.kinds[index];
+        boolean writable = bean != null && descriptor != null && descriptor.getWriteMethod() != null;
+        String token = parser.next();
+        if ( NULL.equals( token ) )
+        {
+            if ( writable && kind > BOOLEAN )
+            {
+                descriptor.setValue( bean, null );
+            }
+            return;
+        }
+        if ( kind == BEAN )
+        {
+            Schema nested = getNestedSchema( descriptor );
+            if ( !writable )
+            {
+                readBean( parser, nested, null );
+                return;
+            }
+            Object value = descriptor.getReadMethod() != null ? descriptor.getValue( bean ) : null;
+            if ( value == null )
+            {
+                value = nested.beanInfo.getAccessor().newInstance();
+            }
+            readBean( parser, nested, value );
+            descriptor.setValue( bean, value );
+            return;
+        }
+        if ( kind == GENERIC )
+        {
+            Object value = parser.readGeneric( token );
+            if ( writable )
+            {
+                descriptor.setValue( bean, value );
+            }
+            return;
+        }
+        if ( kind == ARRAY )
+        {
+            Object value = parser.readArray( descriptor, parseInt( token ) );
+            if ( writable )
+            {
+                descriptor.setValue( bean, value );
+            }
+            return;
+        }
+        if ( !writable )
+        {
+            return;
+        }
+        Class<?> type = descriptor.getPropertyType();
+        switch ( kind )
+        {
+            case INT:
+            case CHAR:
+                descriptor.setInt( bean, parseInt( token ) );
+                break;
+            case LONG:
+                descriptor.setLong( bean, parseLong( token ) );
+                break;
+            case DOUBLE:
+                descriptor.setDouble( bean, Double.parseDouble( token ) );
+                break;
+            case BOOLEAN:
+                descriptor.setBoolean( bean, "1".equals( token ) );
+                break;
+            case STRING:
+                descriptor.setValue( bean, unescape( token ) );
+                break;
+            case DATE:
+                descriptor.setValue( bean, new Date( parseLong( token ) ) );
+                break;
+            case ENUM:
+                descriptor.setValue( bean, BeanJson.readEnum( type, unescape( token ) ) );
+                break;
+            default:
+                descriptor.setValue( bean, parseBoxed( type, token ) );
+        }
+    }
+
+    private static Object parseBoxed( Class<?> type, String token )
+    {
+        if ( type == Integer.class )
+        {
+            return new Integer( parseInt( token ) );
+        }
+        if ( type == Long.class )
+        {
+            return new Long( parseLong( token ) );
+        }
+        if ( type == Short.class )
+        {
+            return new Short( (short) parseInt( token ) );
+        }
+        if ( type == Byte.class )
+        {
+            return new Byte( (byte) parseInt( token ) );
+        }
+        if ( type == Double.class )
+        {
+            return new Double( Double.parseDouble( token ) );
+        }
+        if ( type == Float.class )
+        {
+            return new Float( (float) Double.parseDouble( token ) );
+        }
+        if ( type == Boolean.class )
+        {
+            return Boolean.valueOf( "1".equals( token ) );
+        }
+        return new Character( (char) parseInt( token ) );
+    }
+
+    private static String unescape( String token )
+    {
+        if ( token.indexOf( '\\' ) < 0 )
+        {
+            return token;
+        }
+        StringBuilder value = new StringBuilder( token.length() );
+        for ( int i = 0; i < token.length(); i++ )
+        {
+            char c = token.charAt( i );
+            if ( c == '\\' && i + 1 < token.length() )
+            {
+                c = token.charAt( ++i );
+            }
+            value.append( c );
+        }
+        return value.toString();
+    }
+
+    /**
+     * Parse an int in radix 36
+     */
+    private static int parseInt( String token )
+    {
+        boolean negative = token.startsWith( "-" );
+        int start = negative ? 1 : 0;
+        if ( start == token.length() || token.length() - start > 7 )
+        {
+            throw new IllegalArgumentException( "Invalid number " + token );
+        }
+        int value = 0;
+        for ( int i = start; i < token.length(); i++ )
+        {
+            int digit = Character.digit( token.charAt( i ), 36 );
+            if ( digit < 0 )
+            {
+                throw new IllegalArgumentException( "Invalid number " + token );
+            }
+            value = value * 36 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Parse a long in radix 36
+     */
+    private static long parseLong( String token )
+    {
+        boolean negative = token.startsWith( "-" );
+        int start = negative ? 1 : 0;
+        if ( start == token.length() )
+        {
+            throw new IllegalArgumentException( "Invalid number " + token );
+        }
+        long value = 0;
+        for ( int i = start; i < token.length(); i++ )
+        {
+            int digit = Character.digit( token.charAt( i ), 36 );
+            if ( digit < 0 )
+            {
+                throw new IllegalArgumentException( "Invalid number " + token );
+            }
+            value = value * 36 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * The BeanInfo property descriptors, with their value kind and the schema hash
+     */
+    private static class Schema
+    {
+        private final GwtBeanInfo beanInfo;
+
+        private final GwtPropertyDescriptor[] descriptors;
+
+        private final int[] kinds;
+
+        private final int hash;
+
+        public Schema( Class<?> beanClass, GwtBeanInfo beanInfo )
+        {
+            super();
+            this.beanInfo = beanInfo;
+            PropertyDescriptor[] all = beanInfo.getPropertyDescriptors();
+            descriptors = new GwtPropertyDescriptor[all.length];
+            kinds = new int[all.length];
+            for ( int i = 0; i < all.length; i++ )
+            {
+                if ( all[i] instanceof GwtPropertyDescriptor )
+                {
+                    descriptors[i] = (GwtPropertyDescriptor) all[i];
+                }
+                kinds[i] = getKind( all[i].getPropertyType() );
+            }
+            List<Class<?>> path = new ArrayList<Class<?>>();
+            path.add( beanClass );
+            hash = hash( all, path );
+        }
+
+        /**
+         * Hash the properties names and types, and the properties of nested beans, as they are encoded inline
+         * @param path the bean classes being hashed, so that a cyclic reference only hashes the class name
+         */
+        private static int hash( PropertyDescriptor[] descriptors, List<Class<?>> path )
+        {
+            int h = 0;
+            for ( PropertyDescriptor descriptor : descriptors )
+            {
+                Class<?> type = descriptor.getPropertyType();
+                h = 31 * h + descriptor.getName().hashCode();
+                h = 31 * h + ( type != null ? type.getName().hashCode() : 0 );
+                if ( type == null || getKind( type ) != BEAN || path.contains( type ) )
+                {
+                    continue;
+                }
+                try
+                {
+                    PropertyDescriptor[] nested = GwtIntrospector.__getBeanInfo( type ).getPropertyDescriptors();
+                    path.add( type );
+                    h = 31 * h + hash( nested, path );
+                    path.remove( path.size() - 1 );
+                }
+                catch ( IntrospectionException e )
+                {
+                    // not a bean, encoding the property fails
+                }
+            }
+            return h;
+        }
+    }
+
+    /**
+     * Reader for comma-terminated tokens
+     */
+    private static class Parser
+    {
+        private final String encoded;
+
+        private int pos;
+
+        public Parser( String encoded )
+        {
+            super();
+            this.encoded = encoded;
+        }
+
+        public void header( char format, int hash )
+        {
+            String token = next();
+            if ( token.length() == 0 || token.charAt( 0 ) != format )
+            {
+                throw new IllegalArgumentException( "Invalid encoding format" );
+            }
+            if ( parseInt( token.substring( 1 ) ) != hash )
+            {
+                throw new IllegalArgumentException( "Encoded bean doesn't match the schema" );
+            }
+        }
+
+        public void end()
+        {
+            if ( pos != encoded.length() )
+            {
+                throw new IllegalArgumentException( "Unexpected content at position " + pos );
+            }
+        }
+
+        public int readInt()
+        {
+            return parseInt( next() );
+        }
+
+        /**
+         * @return the next token, still escaped so that an escaped null marker is not mistaken for
+         * <code>null</code>
+         */
+        public String next()
+        {
+            int start = pos;
+            while ( true )
+            {
+                if ( pos >= encoded.length() )
+                {
+                    throw new IllegalArgumentException( "Unexpected end of encoded bean" );
+                }
+                char c = encoded.charAt( pos++ );
+                if ( c == ',' )
+                {
+                    return encoded.substring( start, pos - 1 );
+                }
+                if ( c == '\\' )
+                {
+                    pos++;
+                }
+            }
+        }
+
+        /**
+         * Read the elements of an array property
+         * @param length the array length token value
+         */
+        public Object readArray( GwtPropertyDescriptor descriptor, int length )
+        {
+            Class<?> type = descriptor.getPropertyType();
+            if ( type == String[].class )
+            {
+                String[] array = new String[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    String token = next();
+                    array[i] = NULL.equals( token ) ? null : unescape( token );
+                }
+                return array;
+            }
+            if ( type == int[].class )
+            {
+                int[] array = new int[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    array[i] = parseInt( next() );
+                }
+                return array;
+            }
+            if ( type == long[].class )
+            {
+                long[] array = new long[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    array[i] = parseLong( next() );
+                }
+                return array;
+            }
+            if ( type == double[].class )
+            {
+                double[] array = new double[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    array[i] = Double.parseDouble( next() );
+                }
+                return array;
+            }
+            if ( type == boolean[].class )
+            {
+                boolean[] array = new boolean[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    array[i] = "1".equals( next() );
+                }
+                return array;
+            }
+            if ( type == Object[].class )
+            {
+                Object[] array = new Object[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    array[i] = readGeneric( next() );
+                }
+                return array;
+            }
+            throw new IllegalArgumentException( "Cannot decode property " + descriptor.getName() + " of type "
+                + type.getName() );
+        }
+
+        /**
+         * @param token the tagged value token
+         * @return the value as a String, Integer, Long, Double, Boolean, List or <code>null</code>
+         */
+        public Object readGeneric( String token )
+        {
+            if ( NULL.equals( token ) )
+            {
+                return null;
+            }
+            char tag = token.length() > 0 ? token.charAt( 0 ) : ' ';
+            switch ( tag )
+            {
+                case 's':
+                    return unescape( token.substring( 1 ) );
+                case 'i':
+                    return new Integer( parseInt( token.substring( 1 ) ) );
+                case 'l':
+                    return new Long( parseLong( token.substring( 1 ) ) );
+                case 'n':
+                    return new Double( Double.parseDouble( token.substring( 1 ) ) );
+                case 't':
+                    return Boolean.TRUE;
+                case 'f':
+                    return Boolean.FALSE;
+                case '[':
+                    int size = parseInt( token.substring( 1 ) );
+                    List<Object> list = new ArrayList<Object>( size );
+                    for ( int i = 0; i < size; i++ )
+                    {
+                        list.add( readGeneric( next() ) );
+                    }
+                    return list;
+                default:
+                    throw new IllegalArgumentException( "Invalid value " + token );
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Comparator for introspection-enabled beans, on one or more properties. Properties are compared by the generated
+ * bean accessor, so sorting doesn't use reflective invocation nor box primitive values.
+ *
+ * <pre>
+ * Collections.sort( persons, BeanComparator.builder( Person.class ).ascending( "name" ).descending( "age" ).build() );
+ * </pre>
+ *
+ * @author ndeloof
+ */
+public class BeanComparator<T>
+    implements Comparator<T>
+{
+    private final GwtPropertyDescriptor[] keys;
+
+    private final boolean[] descending;
+
+    private BeanComparator( GwtPropertyDescriptor[] keys, boolean[] descending )
+    {
+        super();
+        this.keys = keys;
+        this.descending = descending;
+    }
+
+    public static <T> Builder<T> builder( Class<T> beanClass )
+    {
+        return new Builder<T>( beanClass );
+    }
+
+    public int compare( T a, T b )
+    {
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            int result = keys[i].compare( a, b );
+            if ( result != 0 )
+            {
+                return descending[i] ? -result : result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Builder for a multi-key comparator. Properties are compared in the order they are added.
+     */
+    public static class Builder<T>
+    {
+        private final Class<T> beanClass;
+
+        private final List<GwtPropertyDescriptor> keys = new ArrayList<GwtPropertyDescriptor>();
+
+        private final List<Boolean> descending = new ArrayList<Boolean>();
+
+        private Builder( Class<T> beanClass )
+        {
+            super();
+            this.beanClass = beanClass;
+        }
+
+        public Builder<T> ascending( String propertyName )
+            throws IntrospectionException
+        {
+            return add( propertyName, false );
+        }
+
+        public Builder<T> descending( String propertyName )
+            throws IntrospectionException
+        {
+            return add( propertyName, true );
+        }
+
+        private Builder<T> add( String propertyName, boolean descendingOrder )
+            throws IntrospectionException
+        {
+            PropertyDescriptor descriptor =
+                GwtIntrospector.__getBeanInfo( beanClass ).getPropertyDescriptor( propertyName );
+            if ( !( descriptor instanceof GwtPropertyDescriptor ) )
+            {
+                throw new IntrospectionException( "No generated property " + propertyName + " in "
+                    + beanClass.getName() );
+            }
+            if ( descriptor.getReadMethod() == null )
+            {
+                throw new IntrospectionException( "Property " + propertyName + " of " + beanClass.getName()
+                    + " is not readable" );
+            }
+            if ( !( (GwtPropertyDescriptor) descriptor ).isComparable() )
+            {
+                throw new IllegalArgumentException( "Property " + propertyName + " of " + beanClass.getName()
+                    + " is not comparable" );
+            }
+            keys.add( (GwtPropertyDescriptor) descriptor );
+            descending.add( Boolean.valueOf( descendingOrder ) );
+            return this;
+        }
+
+        public BeanComparator<T> build()
+        {
+            boolean[] order = new boolean[descending.size()];
+            for ( int i = 0; i < order.length; i++ )
+            {
+                order[i] = descending.get( i ).booleanValue();
+            }
+            return new BeanComparator<T>( keys.toArray( new GwtPropertyDescriptor[keys.size()] ), order );
+        }
+    }
+}
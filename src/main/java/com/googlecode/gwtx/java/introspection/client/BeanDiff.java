@@ -0,0 +1,93 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The properties that differ between two beans, as a bitset indexed like the BeanInfo property descriptors.
+ *
+ * @see GwtIntrospector#diff(Class, Object, Object)
+ * @author ndeloof
+ */
+public class BeanDiff
+{
+    private final GwtBeanInfo beanInfo;
+
+    private final int[] changes;
+
+    BeanDiff( GwtBeanInfo beanInfo, int[] changes )
+    {
+        super();
+        this.beanInfo = beanInfo;
+        this.changes = changes;
+    }
+
+    /**
+     * @return <code>true</code> if no property has changed
+     */
+    public boolean isEmpty()
+    {
+        for ( int word : changes )
+        {
+            if ( word != 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param index the property index in the BeanInfo property descriptors
+     */
+    public boolean isChanged( int index )
+    {
+        return ( changes[index >> 5] & ( 1 << ( index & 31 ) ) ) != 0;
+    }
+
+    public boolean isChanged( String propertyName )
+    {
+        int index = beanInfo.indexOf( propertyName );
+        return index >= 0 && isChanged( index );
+    }
+
+    /**
+     * @return the names of the changed properties
+     */
+    public List<String> getChangedProperties()
+    {
+        List<String> names = new ArrayList<String>();
+        PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
+        for ( int i = 0; i < descriptors.length; i++ )
+        {
+            if ( isChanged( i ) )
+            {
+                names.add( descriptors[i].getName() );
+            }
+        }
+        return names;
+    }
+
+    public String toString()
+    {
+        return getChangedProperties().toString();
+    }
+}
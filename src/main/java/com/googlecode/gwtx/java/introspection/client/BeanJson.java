@@ -0,0 +1,1053 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * JSON encoder and decoder for introspection-enabled beans. Beans are written straight to a StringBuilder and parsed
+ * straight into the bean setters, using the generated property accessors : no reflection is involved and no
+ * intermediate Map is built. The same code runs in GWT and on the JVM.
+ * <p>
+ * Supported property types are primitives and their wrappers, <code>String</code>, <code>Date</code> (as
+ * milliseconds), enums (as their name), <code>List</code>s, <code>Set</code>s, <code>Map</code>s with String keys,
+ * <code>String</code>, <code>Object</code>, <code>int</code>, <code>long</code>, <code>double</code> and
+ * <code>boolean</code> arrays, and nested introspection-enabled beans. Nested beans are read into the current
+ * property value, or into a new instance if the bean class has a public default constructor. As the element type of
+ * collections is not known at runtime, their elements are read as Strings, Doubles, Booleans, Lists or Maps.
+ * <p>
+ * Unknown or read-only properties are skipped. Reading a property of any other type fails with an
+ * <code>IntrospectionException</code>. Object graphs must not have cycles.
+ *
+ * @author ndeloof
+ */
+public class BeanJson
+{
+    private static final int INT = 0;
+
+    private static final int CHAR = 1;
+
+    private static final int LONG = 2;
+
+    private static final int DOUBLE = 3;
+
+    private static final int FLOAT = 4;
+
+    private static final int BOOLEAN = 5;
+
+    private static final int OBJECT = 6;
+
+    // array elements only
+    private static final int STRING = 7;
+
+    private static Registry<Class<?>, Plan> plans = new Registry<Class<?>, Plan>();
+
+    private BeanJson()
+    {
+        super();
+    }
+
+    /**
+     * @return the JSON object for the bean readable properties
+     */
+    public static String toJson( Class<?> beanClass, Object bean )
+        throws IntrospectionException
+    {
+        StringBuilder out = new StringBuilder();
+        write( beanClass, bean, out );
+        return out.toString();
+    }
+
+    /**
+     * Write the bean readable properties as a JSON object
+     */
+    public static void write( Class<?> beanClass, Object bean, StringBuilder out )
+        throws IntrospectionException
+    {
+        if ( bean == null )
+        {
+            out.append( "null" );
+            return;
+        }
+        Plan plan = getPlan( beanClass );
+        out.append( '{' );
+        for ( int i = 0; i < plan.readable.length; i++ )
+        {
+            if ( i > 0 )
+            {
+                out.append( ',' );
+            }
+            out.append( plan.keys[i] );
+            GwtPropertyDescriptor descriptor = plan.readable[i];
+            switch ( plan.kinds[i] )
+            {
+                case INT:
+                    out.append( descriptor.getInt( bean ) );
+                    break;
+                case CHAR:
+                    writeString( String.valueOf( (char) descriptor.getInt( bean ) ), out );
+                    break;
+                case LONG:
+                    out.append( descriptor.getLong( bean ) );
+                    break;
+                case DOUBLE:
+                    writeDouble( descriptor.getDouble( bean ), out );
+                    break;
+                case FLOAT:
+                    writeFloat( (float) descriptor.getDouble( bean ), out );
+                    break;
+                case BOOLEAN:
+                    out.append( descriptor.getBoolean( bean ) );
+                    break;
+                default:
+                    writeValue( descriptor.getValue( bean ), out );
+            }
+        }
+        out.append( '}' );
+    }
+
+    /**
+     * Write the beans as a JSON array
+     */
+    public static void writeList( Class<?> beanClass, Collection<?> beans, StringBuilder out )
+        throws IntrospectionException
+    {
+        out.append( '[' );
+        boolean first = true;
+        for ( Object bean : beans )
+        {
+            if ( !first )
+            {
+                out.append( ',' );
+            }
+            write( beanClass, bean, out );
+            first = false;
+        }
+        out.append( ']' );
+    }
+
+    /**
+     * Set the bean writable properties from a JSON object
+     * @return the bean
+     */
+    public static <T> T fromJson( Class<T> beanClass, String json, T bean )
+        throws IntrospectionException
+    {
+        Parser parser = new Parser( json );
+        readBean( parser, getPlan( beanClass ), bean );
+        parser.end();
+        return bean;
+    }
+
+    /**
+     * @return a new bean, with writable properties set from a JSON object
+     */
+    public static <T> T fromJson( Class<T> beanClass, String json )
+        throws IntrospectionException
+    {
+        return fromJson( beanClass, json, newInstance( beanClass ) );
+    }
+
+    /**
+     * @return new beans, created from the objects of a JSON array
+     */
+    public static <T> List<T> fromJsonList( Class<T> beanClass, String json )
+        throws IntrospectionException
+    {
+        Plan plan = getPlan( beanClass );
+        Parser parser = new Parser( json );
+        List<T> beans = new ArrayList<T>();
+        parser.expect( '[' );
+        if ( !parser.consume( ']' ) )
+        {
+            do
+            {
+                if ( parser.consumeNull() )
+                {
+                    beans.add( null );
+                    continue;
+                }
+                T bean = newInstance( beanClass );
+                readBean( parser, plan, bean );
+                beans.add( bean );
+            }
+            while ( parser.consume( ',' ) );
+            parser.expect( ']' );
+        }
+        parser.end();
+        return beans;
+    }
+
+    private static Plan getPlan( Class<?> beanClass )
+        throws IntrospectionException
+    {
+        Plan plan = plans.get( beanClass );
+        if ( plan == null )
+        {
+            plan = plans.putIfAbsent( beanClass, new Plan( GwtIntrospector.__getBeanInfo( beanClass ) ) );
+        }
+        return plan;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static <T> T newInstance( Class<T> beanClass )
+        throws IntrospectionException
+    {
+        GwtBeanAccessor accessor = GwtIntrospector.__getBeanInfo( beanClass ).getAccessor();
+        if ( accessor == null )
+        {
+            throw new IntrospectionException( "No generated accessor for " + beanClass.getName() );
+        }
+        return (T) accessor.newInstance();
+    }
+
+    private static int getKind( Class<?> type )
+    {
+        if ( type == Integer.TYPE || type == Short.TYPE || type == Byte.TYPE )
+        {
+            return INT;
+        }
+        if ( type == Character.TYPE )
+        {
+            return CHAR;
+        }
+        if ( type == Long.TYPE )
+        {
+            return LONG;
+        }
+        if ( type == Double.TYPE )
+        {
+            return DOUBLE;
+        }
+        if ( type == Float.TYPE )
+        {
+            return FLOAT;
+        }
+        if ( type == Boolean.TYPE )
+        {
+            return BOOLEAN;
+        }
+        return OBJECT;
+    }
+
+    // ----- writer
+
+    private static void writeValue( Object value, StringBuilder out )
+        throws IntrospectionException
+    {
+        if ( value == null )
+        {
+            out.append( "null" );
+        }
+        else if ( value instanceof String )
+        {
+            writeString( (String) value, out );
+        }
+        else if ( value instanceof Double )
+        {
+            writeDouble( ( (Double) value ).doubleValue(), out );
+        }
+        else if ( value instanceof Float )
+        {
+            writeFloat( ( (Float) value ).floatValue(), out );
+        }
+        else if ( value instanceof Number || value instanceof Boolean )
+        {
+            out.append( value.toString() );
+        }
+        else if ( value instanceof Character )
+        {
+            writeString( value.toString(), out );
+        }
+        else if ( value instanceof Enum )
+        {
+            // toString may be overridden, the name is what Enum.valueOf expects
+            writeString( ( (Enum<?>) value ).name(), out );
+        }
+        else if ( value instanceof Date )
+        {
+            out.append( ( (Date) value ).getTime() );
+        }
+        else if ( value instanceof Collection )
+        {
+            out.append( '[' );
+            boolean first = true;
+            for ( Object element : (Collection<?>) value )
+            {
+                if ( !first )
+                {
+                    out.append( ',' );
+                }
+                writeValue( element, out );
+                first = false;
+            }
+            out.append( ']' );
+        }
+        else if ( value instanceof Object[] )
+        {
+            Object[] array = (Object[]) value;
+            out.append( '[' );
+            for ( int i = 0; i < array.length; i++ )
+            {
+                if ( i > 0 )
+                {
+                    out.append( ',' );
+                }
+                writeValue( array[i], out );
+            }
+            out.append( ']' );
+        }
+        else if ( value instanceof int[] )
+        {
+            int[] array = (int[]) value;
+            out.append( '[' );
+            for ( int i = 0; i < array.length; i++ )
+            {
+                out.append( i > 0 ? "," : "" ).append( array[i] );
+            }
+            out.append( ']' );
+        }
+        else if ( value instanceof long[] )
+        {
+            long[] array = (long[]) value;
+            out.append( '[' );
+            for ( int i = 0; i < array.length; i++ )
+            {
+                out.append( i > 0 ? "," : "" ).append( array[i] );
+            }
+            out.append( ']' );
+        }
+        else if ( value instanceof double[] )
+        {
+            double[] array = (double[]) value;
+            out.append( '[' );
+            for ( int i = 0; i < array.length; i++ )
+            {
+                out.append( i > 0 ? "," : "" );
+                writeDouble( array[i], out );
+            }
+            out.append( ']' );
+        }
+        else if ( value instanceof boolean[] )
+        {
+            boolean[] array = (boolean[]) value;
+            out.append( '[' );
+            for ( int i = 0; i < array.length; i++ )
+            {
+                out.append( i > 0 ? "," : "" ).append( array[i] );
+            }
+            out.append( ']' );
+        }
+        else if ( value instanceof Map )
+        {
+            out.append( '{' );
+            boolean first = true;
+            for ( Iterator<?> it = ( (Map<?, ?>) value ).entrySet().iterator(); it.hasNext(); )
+            {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) it.next();
+                if ( !first )
+                {
+                    out.append( ',' );
+                }
+                writeString( String.valueOf( entry.getKey() ), out );
+                out.append( ':' );
+                writeValue( entry.getValue(), out );
+                first = false;
+            }
+            out.append( '}' );
+        }
+        else
+        {
+            write( value.getClass(), value, out );
+        }
+    }
+
+    /**
+     * JSON has no NaN nor infinite values, they are written as <code>null</code>
+     */
+    private static void writeDouble( double value, StringBuilder out )
+    {
+        if ( Double.isNaN( value ) || Double.isInfinite( value ) )
+        {
+            out.append( "null" );
+        }
+        else
+        {
+            out.append( value );
+        }
+    }
+
+    private static void writeFloat( float value, StringBuilder out )
+    {
+        if ( Float.isNaN( value ) || Float.isInfinite( value ) )
+        {
+            out.append( "null" );
+        }
+        else
+        {
+            out.append( value );
+        }
+    }
+
+    private static void writeString( String value, StringBuilder out )
+    {
+        out.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            switch ( c )
+            {
+                case '"':
+                    out.append( "\\\"" );
+                    break;
+                case '\\':
+                    out.append( "\\\\" );
+                    break;
+                case '\n':
+                    out.append( "\\n" );
+                    break;
+                case '\r':
+                    out.append( "\\r" );
+                    break;
+                case '\t':
+                    out.append( "\\t" );
+                    break;
+                case '\b':
+                    out.append( "\\b" );
+                    break;
+                case '\f':
+                    out.append( "\\f" );
+                    break;
+                default:
+                    // line separators are valid JSON but not valid javascript
+                    if ( c < 0x20 || c == 0x2028 || c == 0x2029 )
+                    {
+                        String hex = Integer.toHexString( c );
+                        out.append( "\\u" );
+                        for ( int pad = hex.length(); pad < 4; pad++ )
+                        {
+                            out.append( '0' );
+                        }
+                        out.append( hex );
+                    }
+                    else
+                    {
+                        out.append( c );
+                    }
+            }
+        }
+        out.append( '"' );
+    }
+
+    // ----- reader
+
+    private static void readBean( Parser parser, Plan plan, Object bean )
+        throws IntrospectionException
+    {
+        parser.expect( '{' );
+        if ( parser.consume( '}' ) )
+        {
+            return;
+        }
+        do
+        {
+            String name = parser.readString();
+            parser.expect( ':' );
+            int index = plan.beanInfo.indexOf( name );
+            PropertyDescriptor descriptor = index < 0 ? null : plan.beanInfo.getPropertyDescriptors()[index];
+            if ( descriptor instanceof GwtPropertyDescriptor && descriptor.getWriteMethod() != null )
+            {
+                readProperty( parser, (GwtPropertyDescriptor) descriptor, bean );
+            }
+            else
+            {
+                parser.readValue();
+            }
+        }
+        while ( parser.consume( ',' ) );
+        parser.expect( '}' );
+    }
+
+    private static void readProperty( Parser parser, GwtPropertyDescriptor descriptor, Object bean )
+        throws IntrospectionException
+    {
+        Class<?> type = descriptor.getPropertyType();
+        int kind = getKind( type );
+        if ( kind != OBJECT && parser.consumeNull() )
+        {
+            // primitive properties keep their value
+            return;
+        }
+        switch ( kind )
+        {
+            case INT:
+                descriptor.setInt( bean, (int) parser.readLong() );
+                return;
+            case CHAR:
+                descriptor.setInt( bean, parser.readChar() );
+                return;
+            case LONG:
+                descriptor.setLong( bean, parser.readLong() );
+                return;
+            case DOUBLE:
+            case FLOAT:
+                descriptor.setDouble( bean, parser.readDouble() );
+                return;
+            case BOOLEAN:
+                descriptor.setBoolean( bean, parser.readBoolean() );
+                return;
+            default:
+                break;
+        }
+        if ( parser.consumeNull() )
+        {
+            descriptor.setValue( bean, null );
+        }
+        else if ( type == String.class )
+        {
+            descriptor.setValue( bean, parser.readString() );
+        }
+        else if ( type == Integer.class )
+        {
+            descriptor.setValue( bean, new Integer( (int) parser.readLong() ) );
+        }
+        else if ( type == Long.class )
+        {
+            descriptor.setValue( bean, new Long( parser.readLong() ) );
+        }
+        else if ( type == Double.class )
+        {
+            descriptor.setValue( bean, new Double( parser.readDouble() ) );
+        }
+        else if ( type == Float.class )
+        {
+            descriptor.setValue( bean, new Float( (float) parser.readDouble() ) );
+        }
+        else if ( type == Short.class )
+        {
+            descriptor.setValue( bean, new Short( (short) parser.readLong() ) );
+        }
+        else if ( type == Byte.class )
+        {
+            descriptor.setValue( bean, new Byte( (byte) parser.readLong() ) );
+        }
+        else if ( type == Boolean.class )
+        {
+            descriptor.setValue( bean, Boolean.valueOf( parser.readBoolean() ) );
+        }
+        else if ( type == Character.class )
+        {
+            descriptor.setValue( bean, new Character( parser.readChar() ) );
+        }
+        else if ( type == Date.class )
+        {
+            descriptor.setValue( bean, new Date( parser.readLong() ) );
+        }
+        else if ( type.isEnum() )
+        {
+            descriptor.setValue( bean, readEnum( type, parser.readString() ) );
+        }
+        else if ( type.isArray() )
+        {
+            descriptor.setValue( bean, readArray( parser, descriptor ) );
+        }
+        else if ( type == List.class || type == Collection.class || type == ArrayList.class )
+        {
+            descriptor.setValue( bean, readElements( parser, OBJECT ) );
+        }
+        else if ( type == Set.class || type == HashSet.class )
+        {
+            descriptor.setValue( bean, new HashSet<Object>( readElements( parser, OBJECT ) ) );
+        }
+        else if ( type == SortedSet.class || type == TreeSet.class )
+        {
+            descriptor.setValue( bean, new TreeSet<Object>( readElements( parser, OBJECT ) ) );
+        }
+        else if ( type == Object.class || type == Map.class || type == HashMap.class )
+        {
+            descriptor.setValue( bean, parser.readValue() );
+        }
+        else
+        {
+            readNested( parser, descriptor, bean );
+        }
+    }
+
+    static <E extends Enum<E>> E readEnum( Class<?> type, String name )
+    {
+        // the caller checked Class.isEnum()
+        @SuppressWarnings( "unchecked" )
+        Class<E> enumType = (Class<E>) type;
+        return Enum.valueOf( enumType, name );
+    }
+
+    /**
+     * Read an array property. Arrays can't be created for any component type without reflection, so only a fixed
+     * set of array types is supported.
+     */
+    private static Object readArray( Parser parser, GwtPropertyDescriptor descriptor )
+        throws IntrospectionException
+    {
+        Class<?> type = descriptor.getPropertyType();
+        if ( type == String[].class )
+        {
+            List<Object> values = readElements( parser, STRING );
+            return values.toArray( new String[values.size()] );
+        }
+        if ( type == Object[].class )
+        {
+            return readElements( parser, OBJECT ).toArray();
+        }
+        if ( type == int[].class )
+        {
+            List<Object> values = readElements( parser, LONG );
+            int[] array = new int[values.size()];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                array[i] = ( (Long) values.get( i ) ).intValue();
+            }
+            return array;
+        }
+        if ( type == long[].class )
+        {
+            List<Object> values = readElements( parser, LONG );
+            long[] array = new long[values.size()];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                array[i] = ( (Long) values.get( i ) ).longValue();
+            }
+            return array;
+        }
+        if ( type == double[].class )
+        {
+            List<Object> values = readElements( parser, DOUBLE );
+            double[] array = new double[values.size()];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                array[i] = ( (Double) values.get( i ) ).doubleValue();
+            }
+            return array;
+        }
+        if ( type == boolean[].class )
+        {
+            List<Object> values = readElements( parser, BOOLEAN );
+            boolean[] array = new boolean[values.size()];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                array[i] = ( (Boolean) values.get( i ) ).booleanValue();
+            }
+            return array;
+        }
+        throw unsupported( descriptor );
+    }
+
+    /**
+     * Read the elements of a JSON array
+     * @param kind LONG, DOUBLE, BOOLEAN, STRING or OBJECT for any JSON value
+     */
+    private static List<Object> readElements( Parser parser, int kind )
+    {
+        List<Object> values = new ArrayList<Object>();
+        parser.expect( '[' );
+        if ( !parser.consume( ']' ) )
+        {
+            do
+            {
+                switch ( kind )
+                {
+                    case LONG:
+                        values.add( new Long( parser.readLong() ) );
+                        break;
+                    case DOUBLE:
+                        // NaN and infinite values are written as null
+                        values.add( new Double( parser.consumeNull() ? Double.NaN : parser.readDouble() ) );
+                        break;
+                    case BOOLEAN:
+                        values.add( Boolean.valueOf( parser.readBoolean() ) );
+                        break;
+                    case STRING:
+                        values.add( parser.consumeNull() ? null : parser.readString() );
+                        break;
+                    default:
+                        values.add( parser.readValue() );
+                }
+            }
+            while ( parser.consume( ',' ) );
+            parser.expect( ']' );
+        }
+        return values;
+    }
+
+    /**
+     * Read a nested bean into the current property value, or a new instance
+     */
+    private static void readNested( Parser parser, GwtPropertyDescriptor descriptor, Object bean )
+        throws IntrospectionException
+    {
+        Class<?> type = descriptor.getPropertyType();
+        Plan plan;
+        try
+        {
+            plan = getPlan( type );
+        }
+        catch ( IntrospectionException e )
+        {
+            // not a bean, nor a supported type
+            throw unsupported( descriptor );
+        }
+        Object value = descriptor.getReadMethod() != null ? descriptor.getValue( bean ) : null;
+        if ( value == null )
+        {
+            try
+            {
+                value = newInstance( type );
+            }
+            catch ( UnsupportedOperationException e )
+            {
+                throw new IntrospectionException( "Cannot read property " + descriptor.getName() + ": "
+                    + e.getMessage() );
+            }
+            readBean( parser, plan, value );
+            descriptor.setValue( bean, value );
+        }
+        else
+        {
+            readBean( parser, getPlan( value.getClass() ), value );
+        }
+    }
+
+    private static IntrospectionException unsupported( GwtPropertyDescriptor descriptor )
+    {
+        return new IntrospectionException( "Unsupported type " + descriptor.getPropertyType().getName()
+            + " for property " + descriptor.getName() );
+    }
+
+    /**
+     * The readable properties of a bean class, with their JSON keys
+     */
+    private static class Plan
+    {
+        private final GwtBeanInfo beanInfo;
+
+        private final GwtPropertyDescriptor[] readable;
+
+        private final String[] keys;
+
+        private final int[] kinds;
+
+        public Plan( GwtBeanInfo beanInfo )
+        {
+            super();
+            this.beanInfo = beanInfo;
+            List<GwtPropertyDescriptor> list = new ArrayList<GwtPropertyDescriptor>();
+            for ( PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors() )
+            {
+                if ( descriptor instanceof GwtPropertyDescriptor && descriptor.getReadMethod() != null )
+                {
+                    list.add( (GwtPropertyDescriptor) descriptor );
+                }
+            }
+            readable = list.toArray( new GwtPropertyDescriptor[list.size()] );
+            keys = new String[readable.length];
+            kinds = new int[readable.length];
+            for ( int i = 0; i < readable.length; i++ )
+            {
+                StringBuilder key = new StringBuilder();
+                writeString( readable[i].getName(), key );
+                keys[i] = key.append( ':' ).toString();
+                kinds[i] = getKind( readable[i].getPropertyType() );
+            }
+        }
+    }
+
+    /**
+     * Pull parser over a JSON String
+     */
+    private static class Parser
+    {
+        private final String json;
+
+        private int pos;
+
+        public Parser( String json )
+        {
+            super();
+            this.json = json;
+        }
+
+        private char peek()
+        {
+            while ( pos < json.length() )
+            {
+                char c = json.charAt( pos );
+                if ( c != ' ' && c != '\t' && c != '\n' && c != '\r' )
+                {
+                    return c;
+                }
+                pos++;
+            }
+            throw error( "Unexpected end of JSON" );
+        }
+
+        public boolean consume( char c )
+        {
+            if ( peek() == c )
+            {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        public void expect( char c )
+        {
+            if ( !consume( c ) )
+            {
+                throw error( "'" + c + "' expected" );
+            }
+        }
+
+        public boolean consumeNull()
+        {
+            if ( peek() == 'n' && json.startsWith( "null", pos ) )
+            {
+                pos += 4;
+                return true;
+            }
+            return false;
+        }
+
+        public void end()
+        {
+            while ( pos < json.length() )
+            {
+                char c = json.charAt( pos++ );
+                if ( c != ' ' && c != '\t' && c != '\n' && c != '\r' )
+                {
+                    pos--;
+                    throw error( "Unexpected content after JSON value" );
+                }
+            }
+        }
+
+        public boolean readBoolean()
+        {
+            peek();
+            if ( json.startsWith( "true", pos ) )
+            {
+                pos += 4;
+                return true;
+            }
+            if ( json.startsWith( "false", pos ) )
+            {
+                pos += 5;
+                return false;
+            }
+            throw error( "Boolean expected" );
+        }
+
+        public char readChar()
+        {
+            String value = readString();
+            if ( value.length() != 1 )
+            {
+                throw error( "Single character expected" );
+            }
+            return value.charAt( 0 );
+        }
+
+        /**
+         * Integral numbers are parsed as long, so that values beyond double precision are not altered
+         */
+        public long readLong()
+        {
+            String number = readNumber();
+            for ( int i = 0; i < number.length(); i++ )
+            {
+                char c = number.charAt( i );
+                if ( c == '.' || c == 'e' || c == 'E' )
+                {
+                    return (long) Double.parseDouble( number );
+                }
+            }
+            return Long.parseLong( number );
+        }
+
+        public double readDouble()
+        {
+            return Double.parseDouble( readNumber() );
+        }
+
+        private String readNumber()
+        {
+            peek();
+            int start = pos;
+            while ( pos < json.length() )
+            {
+                char c = json.charAt( pos );
+                if ( ( c >= '0' && c <= '9' ) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' )
+                {
+                    pos++;
+                }
+                else
+                {
+                    break;
+                }
+            }
+            if ( start == pos )
+            {
+                throw error( "Number expected" );
+            }
+            return json.substring( start, pos );
+        }
+
+        public String readString()
+        {
+            expect( '"' );
+            StringBuilder value = null;
+            int start = pos;
+            while ( true )
+            {
+                if ( pos >= json.length() )
+                {
+                    throw error( "Unterminated string" );
+                }
+                char c = json.charAt( pos++ );
+                if ( c == '"' )
+                {
+                    if ( value == null )
+                    {
+                        return json.substring( start, pos - 1 );
+                    }
+                    return value.append( json.substring( start, pos - 1 ) ).toString();
+                }
+                if ( c == '\\' )
+                {
+                    if ( value == null )
+                    {
+                        value = new StringBuilder();
+                    }
+                    value.append( json.substring( start, pos - 1 ) );
+                    value.append( readEscape() );
+                    start = pos;
+                }
+            }
+        }
+
+        private char readEscape()
+        {
+            if ( pos >= json.length() )
+            {
+                throw error( "Unterminated string" );
+            }
+            char c = json.charAt( pos++ );
+            switch ( c )
+            {
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'u':
+                    if ( pos + 4 > json.length() )
+                    {
+                        throw error( "Invalid unicode escape" );
+                    }
+                    pos += 4;
+                    return (char) Integer.parseInt( json.substring( pos - 4, pos ), 16 );
+                default:
+                    return c;
+            }
+        }
+
+        /**
+         * @return the value as a String, Double, Boolean, List, Map or <code>null</code>
+         */
+        public Object readValue()
+        {
+            char c = peek();
+            if ( c == '"' )
+            {
+                return readString();
+            }
+            if ( c == '{' )
+            {
+                pos++;
+                Map<String, Object> map = new HashMap<String, Object>();
+                if ( !consume( '}' ) )
+                {
+                    do
+                    {
+                        String key = readString();
+                        expect( ':' );
+                        map.put( key, readValue() );
+                    }
+                    while ( consume( ',' ) );
+                    expect( '}' );
+                }
+                return map;
+            }
+            if ( c == '[' )
+            {
+                pos++;
+                List<Object> list = new ArrayList<Object>();
+                if ( !consume( ']' ) )
+                {
+                    do
+                    {
+                        list.add( readValue() );
+                    }
+                    while ( consume( ',' ) );
+                    expect( ']' );
+                }
+                return list;
+            }
+            if ( c == 't' || c == 'f' )
+            {
+                return Boolean.valueOf( readBoolean() );
+            }
+            if ( consumeNull() )
+            {
+                return null;
+            }
+            return new Double( readDouble() );
+        }
+
+        private IllegalArgumentException error( String message )
+        {
+            return new IllegalArgumentException( message + " at position " + pos );
+        }
+    }
+}
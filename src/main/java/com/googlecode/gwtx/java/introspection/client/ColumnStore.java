@@ -0,0 +1,615 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar storage for a large number of introspection-enabled beans. Each readable property is stored in an array,
+ * using primitive arrays for primitive properties, so that rows don't cost a bean instance and boxed values.
+ * <ul>
+ * <li><code>int</code>, <code>short</code>, <code>byte</code> and <code>char</code> properties are stored as
+ * <code>int[]</code></li>
+ * <li><code>long</code> properties as <code>long[]</code></li>
+ * <li><code>double</code> and <code>float</code> properties as <code>double[]</code></li>
+ * <li><code>boolean</code> properties as <code>boolean[]</code></li>
+ * <li>other properties as <code>Object[]</code></li>
+ * </ul>
+ * Beans are loaded column by column, using the generated primitive accessors. Column arrays can be scanned directly
+ * to sort or filter rows, and {@link Row} views give access to a single row.
+ *
+ * @author ndeloof
+ */
+public class ColumnStore<T>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Column[] columns;
+
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    private int size;
+
+    private int capacity;
+
+    /**
+     * @param beanClass an introspection-enabled bean class
+     */
+    public ColumnStore( Class<T> beanClass )
+        throws IntrospectionException
+    {
+        this( beanClass, DEFAULT_CAPACITY );
+    }
+
+    /**
+     * @param beanClass an introspection-enabled bean class
+     * @param capacity initial number of rows
+     */
+    public ColumnStore( Class<T> beanClass, int capacity )
+        throws IntrospectionException
+    {
+        super();
+        this.capacity = Math.max( capacity, 1 );
+        List<Column> list = new ArrayList<Column>();
+        for ( PropertyDescriptor descriptor : GwtIntrospector.__getBeanInfo( beanClass ).getPropertyDescriptors() )
+        {
+            if ( descriptor instanceof GwtPropertyDescriptor && descriptor.getReadMethod() != null )
+            {
+                indexes.put( descriptor.getName(), new Integer( list.size() ) );
+                list.add( createColumn( (GwtPropertyDescriptor) descriptor, this.capacity ) );
+            }
+        }
+        columns = list.toArray( new Column[list.size()] );
+    }
+
+    private static Column createColumn( GwtPropertyDescriptor descriptor, int capacity )
+    {
+        Class<?> type = descriptor.getPropertyType();
+        if ( type == Integer.TYPE || type == Short.TYPE || type == Byte.TYPE || type == Character.TYPE )
+        {
+            return new IntColumn( descriptor, capacity );
+        }
+        if ( type == Long.TYPE )
+        {
+            return new LongColumn( descriptor, capacity );
+        }
+        if ( type == Double.TYPE || type == Float.TYPE )
+        {
+            return new DoubleColumn( descriptor, capacity );
+        }
+        if ( type == Boolean.TYPE )
+        {
+            return new BooleanColumn( descriptor, capacity );
+        }
+        return new ObjectColumn( descriptor, capacity );
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the number of columns, one for each readable property
+     */
+    public int getColumnCount()
+    {
+        return columns.length;
+    }
+
+    /**
+     * @return the index of the property column, or -1 if the property is not stored
+     */
+    public int getColumnIndex( String propertyName )
+    {
+        Integer index = indexes.get( propertyName );
+        return index == null ? -1 : index.intValue();
+    }
+
+    public GwtPropertyDescriptor getPropertyDescriptor( int column )
+    {
+        return columns[column].descriptor;
+    }
+
+    /**
+     * Load the bean readable properties into a new row
+     * @return the row index
+     */
+    public int add( T bean )
+    {
+        ensureCapacity( size + 1 );
+        for ( Column column : columns )
+        {
+            column.load( bean, size );
+        }
+        return size++;
+    }
+
+    /**
+     * Load the beans, column by column
+     */
+    public void addAll( List<? extends T> beans )
+    {
+        int count = beans.size();
+        ensureCapacity( size + count );
+        for ( Column column : columns )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                column.load( beans.get( i ), size + i );
+            }
+        }
+        size += count;
+    }
+
+    /**
+     * Remove all rows. Column arrays are kept for reuse.
+     */
+    public void clear()
+    {
+        for ( Column column : columns )
+        {
+            column.clear( size );
+        }
+        size = 0;
+    }
+
+    /**
+     * @return a view on the row
+     */
+    public Row getRow( int row )
+    {
+        checkRow( row );
+        return new Row( row );
+    }
+
+    /**
+     * Set the writable properties of the bean from the row values
+     * @return the bean
+     */
+    public T copyTo( int row, T bean )
+    {
+        checkRow( row );
+        for ( Column column : columns )
+        {
+            if ( column.descriptor.getWriteMethod() != null )
+            {
+                column.store( row, bean );
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * @return the column values, for row indexes lower than {@link #size()}. The array is shared and may be
+     * replaced as rows are added.
+     * @throws IllegalArgumentException the property is not stored as <code>int</code>
+     */
+    public int[] getIntColumn( String propertyName )
+    {
+        return ( (IntColumn) getColumn( propertyName, IntColumn.class ) ).values;
+    }
+
+    /**
+     * @see #getIntColumn(String)
+     */
+    public long[] getLongColumn( String propertyName )
+    {
+        return ( (LongColumn) getColumn( propertyName, LongColumn.class ) ).values;
+    }
+
+    /**
+     * @see #getIntColumn(String)
+     */
+    public double[] getDoubleColumn( String propertyName )
+    {
+        return ( (DoubleColumn) getColumn( propertyName, DoubleColumn.class ) ).values;
+    }
+
+    /**
+     * @see #getIntColumn(String)
+     */
+    public boolean[] getBooleanColumn( String propertyName )
+    {
+        return ( (BooleanColumn) getColumn( propertyName, BooleanColumn.class ) ).values;
+    }
+
+    /**
+     * @see #getIntColumn(String)
+     */
+    public Object[] getObjectColumn( String propertyName )
+    {
+        return ( (ObjectColumn) getColumn( propertyName, ObjectColumn.class ) ).values;
+    }
+
+    private Column getColumn( String propertyName, Class<?> columnClass )
+    {
+        Column column = columns[requireColumnIndex( propertyName )];
+        if ( column.getClass() != columnClass )
+        {
+            throw new IllegalArgumentException( "Property " + propertyName + " is stored as "
+                + column.descriptor.getPropertyType().getName() );
+        }
+        return column;
+    }
+
+    private int requireColumnIndex( String propertyName )
+    {
+        int index = getColumnIndex( propertyName );
+        if ( index < 0 )
+        {
+            throw new IllegalArgumentException( "No column for property " + propertyName );
+        }
+        return index;
+    }
+
+    private void ensureCapacity( int required )
+    {
+        if ( required <= capacity )
+        {
+            return;
+        }
+        int newCapacity = Math.max( capacity * 2, required );
+        for ( Column column : columns )
+        {
+            column.grow( newCapacity );
+        }
+        capacity = newCapacity;
+    }
+
+    private void checkRow( int row )
+    {
+        if ( row < 0 || row >= size )
+        {
+            throw new IndexOutOfBoundsException( "Row " + row + ", size " + size );
+        }
+    }
+
+    /**
+     * A view on a row of the store. Values are read from and written to the column arrays.
+     */
+    public class Row
+    {
+        private final int row;
+
+        private Row( int row )
+        {
+            super();
+            this.row = row;
+        }
+
+        public int getIndex()
+        {
+            return row;
+        }
+
+        /**
+         * @return the property value, boxed for primitive properties
+         */
+        public Object get( String propertyName )
+        {
+            return get( requireColumnIndex( propertyName ) );
+        }
+
+        public Object get( int column )
+        {
+            return columns[column].get( row );
+        }
+
+        public void set( String propertyName, Object value )
+        {
+            set( requireColumnIndex( propertyName ), value );
+        }
+
+        public void set( int column, Object value )
+        {
+            columns[column].set( row, value );
+        }
+
+        public int getInt( String propertyName )
+        {
+            return getIntColumn( propertyName )[row];
+        }
+
+        public long getLong( String propertyName )
+        {
+            return getLongColumn( propertyName )[row];
+        }
+
+        public double getDouble( String propertyName )
+        {
+            return getDoubleColumn( propertyName )[row];
+        }
+
+        public boolean getBoolean( String propertyName )
+        {
+            return getBooleanColumn( propertyName )[row];
+        }
+
+        /**
+         * Set the writable properties of the bean from the row values
+         */
+        public T copyTo( T bean )
+        {
+            return ColumnStore.this.copyTo( row, bean );
+        }
+    }
+
+    private abstract static class Column
+    {
+        protected final GwtPropertyDescriptor descriptor;
+
+        protected Column( GwtPropertyDescriptor descriptor )
+        {
+            super();
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * Read the bean property into the row
+         */
+        abstract void load( Object bean, int row );
+
+        /**
+         * Write the row value to the bean property
+         */
+        abstract void store( int row, Object bean );
+
+        abstract Object get( int row );
+
+        abstract void set( int row, Object value );
+
+        abstract void grow( int capacity );
+
+        /**
+         * Release references held by the first rows
+         */
+        void clear( int size )
+        {
+        }
+    }
+
+    private static class IntColumn
+        extends Column
+    {
+        private int[] values;
+
+        IntColumn( GwtPropertyDescriptor descriptor, int capacity )
+        {
+            super( descriptor );
+            values = new int[capacity];
+        }
+
+        void load( Object bean, int row )
+        {
+            values[row] = descriptor.getInt( bean );
+        }
+
+        void store( int row, Object bean )
+        {
+            descriptor.setInt( bean, values[row] );
+        }
+
+        Object get( int row )
+        {
+            Class<?> type = descriptor.getPropertyType();
+            if ( type == Character.TYPE )
+            {
+                return new Character( (char) values[row] );
+            }
+            if ( type == Short.TYPE )
+            {
+                return new Short( (short) values[row] );
+            }
+            if ( type == Byte.TYPE )
+            {
+                return new Byte( (byte) values[row] );
+            }
+            return new Integer( values[row] );
+        }
+
+        void set( int row, Object value )
+        {
+            values[row] = value instanceof Character ? ( (Character) value ).charValue()
+                            : ( (Number) value ).intValue();
+        }
+
+        void grow( int capacity )
+        {
+            int[] grown = new int[capacity];
+            System.arraycopy( values, 0, grown, 0, values.length );
+            values = grown;
+        }
+    }
+
+    private static class LongColumn
+        extends Column
+    {
+        private long[] values;
+
+        LongColumn( GwtPropertyDescriptor descriptor, int capacity )
+        {
+            super( descriptor );
+            values = new long[capacity];
+        }
+
+        void load( Object bean, int row )
+        {
+            values[row] = descriptor.getLong( bean );
+        }
+
+        void store( int row, Object bean )
+        {
+            descriptor.setLong( bean, values[row] );
+        }
+
+        Object get( int row )
+        {
+            return new Long( values[row] );
+        }
+
+        void set( int row, Object value )
+        {
+            values[row] = ( (Number) value ).longValue();
+        }
+
+        void grow( int capacity )
+        {
+            long[] grown = new long[capacity];
+            System.arraycopy( values, 0, grown, 0, values.length );
+            values = grown;
+        }
+    }
+
+    private static class DoubleColumn
+        extends Column
+    {
+        private double[] values;
+
+        DoubleColumn( GwtPropertyDescriptor descriptor, int capacity )
+        {
+            super( descriptor );
+            values = new double[capacity];
+        }
+
+        void load( Object bean, int row )
+        {
+            values[row] = descriptor.getDouble( bean );
+        }
+
+        void store( int row, Object bean )
+        {
+            descriptor.setDouble( bean, values[row] );
+        }
+
+        Object get( int row )
+        {
+            if ( descriptor.getPropertyType() == Float.TYPE )
+            {
+                return new Float( (float) values[row] );
+            }
+            return new Double( values[row] );
+        }
+
+        void set( int row, Object value )
+        {
+            values[row] = ( (Number) value ).doubleValue();
+        }
+
+        void grow( int capacity )
+        {
+            double[] grown = new double[capacity];
+            System.arraycopy( values, 0, grown, 0, values.length );
+            values = grown;
+        }
+    }
+
+    private static class BooleanColumn
+        extends Column
+    {
+        private boolean[] values;
+
+        BooleanColumn( GwtPropertyDescriptor descriptor, int capacity )
+        {
+            super( descriptor );
+            values = new boolean[capacity];
+        }
+
+        void load( Object bean, int row )
+        {
+            values[row] = descriptor.getBoolean( bean );
+        }
+
+        void store( int row, Object bean )
+        {
+            descriptor.setBoolean( bean, values[row] );
+        }
+
+        Object get( int row )
+        {
+            return Boolean.valueOf( values[row] );
+        }
+
+        void set( int row, Object value )
+        {
+            values[row] = ( (Boolean) value ).booleanValue();
+        }
+
+        void grow( int capacity )
+        {
+            boolean[] grown = new boolean[capacity];
+            System.arraycopy( values, 0, grown, 0, values.length );
+            values = grown;
+        }
+    }
+
+    private static class ObjectColumn
+        extends Column
+    {
+        private Object[] values;
+
+        ObjectColumn( GwtPropertyDescriptor descriptor, int capacity )
+        {
+            super( descriptor );
+            values = new Object[capacity];
+        }
+
+        void load( Object bean, int row )
+        {
+            values[row] = descriptor.getValue( bean );
+        }
+
+        void store( int row, Object bean )
+        {
+            descriptor.setValue( bean, values[row] );
+        }
+
+        Object get( int row )
+        {
+            return values[row];
+        }
+
+        void set( int row, Object value )
+        {
+            values[row] = value;
+        }
+
+        void grow( int capacity )
+        {
+            Object[] grown = new Object[capacity];
+            System.arraycopy( values, 0, grown, 0, values.length );
+            values = grown;
+        }
+
+        void clear( int size )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                values[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.util.Map;
+
+/**
+ * Property accessor for an introspection-enabled bean. The generator emits one subclass per bean type, that
+ * dispatches to the bean getters and setters using the property index, so that a single class replaces the
+ * <code>Method</code> implementations previously generated for every accessor.
+ * <p>
+ * Primitive accessors default to (un)boxing through {@link #get(Object, int)} and
+ * {@link #set(Object, int, Object)}. The generator overrides them to call primitive properties directly.
+ *
+ * @author ndeloof
+ */
+public abstract class GwtBeanAccessor
+{
+    /**
+     * @return a new bean instance
+     * @throws UnsupportedOperationException the bean class has no public default constructor
+     */
+    public Object newInstance()
+    {
+        throw new UnsupportedOperationException( "Bean class cannot be instantiated" );
+    }
+
+    /**
+     * @param bean the bean to read
+     * @param index the property index, as registered in the bean {@link GwtBeanInfo}
+     * @return the property value
+     */
+    public abstract Object get( Object bean, int index );
+
+    /**
+     * @param bean the bean to update
+     * @param index the property index, as registered in the bean {@link GwtBeanInfo}
+     * @param value the new property value
+     */
+    public abstract void set( Object bean, int index, Object value );
+
+    /**
+     * Copy all readable and writable properties, including inherited ones, from <code>src</code> to
+     * <code>dst</code>.
+     */
+    public abstract void copy( Object src, Object dst );
+
+    /**
+     * Copy a single property from <code>src</code> to <code>dst</code>.
+     * @param index the property index, as registered in the bean {@link GwtBeanInfo}
+     */
+    public abstract void copy( Object src, Object dst, int index );
+
+    /**
+     * Put all readable properties, including inherited ones, in the map, by property name.
+     */
+    public abstract void toMap( Object bean, Map<String, Object> map );
+
+    /**
+     * Set all writable properties, including inherited ones, that have an entry in the map. <code>null</code>
+     * values are ignored for primitive properties.
+     */
+    public abstract void fromMap( Map<String, Object> map, Object bean );
+
+    /**
+     * Compare a property of two beans. Primitive properties are compared without boxing, <code>Comparable</code> ones
+     * with <code>null</code> values first.
+     * @param index the property index, as registered in the bean {@link GwtBeanInfo}
+     * @return a negative integer, zero, or a positive integer as the property of <code>a</code> is less than, equal
+     * to, or greater than the one of <code>b</code>
+     */
+    public abstract int compare( Object a, Object b, int index );
+
+    /**
+     * @param index the property index, as registered in the bean {@link GwtBeanInfo}
+     * @return <code>true</code> if the property is readable, and primitive or <code>Comparable</code>, so that
+     * {@link #compare(Object, Object, int)} supports it
+     */
+    public abstract boolean isComparable( int index );
+
+    /**
+     * Compare all readable properties declared by the bean class, and mark the changed ones. Inherited properties are
+     * compared by the superclass accessor.
+     * @param positions the index of each accessor property in the bean resolved property descriptors, or -1
+     * @param changes bitset of changed properties, by index in the bean resolved property descriptors
+     */
+    public abstract void diff( Object a, Object b, int[] positions, int[] changes );
+
+    /**
+     * @return a hash of all readable properties, including inherited ones, consistent with
+     * {@link #diff(Object, Object, int[], int[])}
+     */
+    public abstract int hash( Object bean );
+
+    public int getInt( Object bean, int index )
+    {
+        Object value = get( bean, index );
+        if ( value instanceof Character )
+        {
+            return ( (Character) value ).charValue();
+        }
+        return ( (Number) value ).intValue();
+    }
+
+    public long getLong( Object bean, int index )
+    {
+        return ( (Number) get( bean, index ) ).longValue();
+    }
+
+    public double getDouble( Object bean, int index )
+    {
+        return ( (Number) get( bean, index ) ).doubleValue();
+    }
+
+    public boolean getBoolean( Object bean, int index )
+    {
+        return ( (Boolean) get( bean, index ) ).booleanValue();
+    }
+
+    public void setInt( Object bean, int index, int value )
+    {
+        set( bean, index, new Integer( value ) );
+    }
+
+    public void setLong( Object bean, int index, long value )
+    {
+        set( bean, index, new Long( value ) );
+    }
+
+    public void setDouble( Object bean, int index, double value )
+    {
+        set( bean, index, new Double( value ) );
+    }
+
+    public void setBoolean( Object bean, int index, boolean value )
+    {
+        set( bean, index, Boolean.valueOf( value ) );
+    }
+
+    protected static int compareValues( int a, int b )
+    {
+        return a < b ? -1 : ( a == b ? 0 : 1 );
+    }
+
+    protected static int compareValues( long a, long b )
+    {
+        return a < b ? -1 : ( a == b ? 0 : 1 );
+    }
+
+    /**
+     * Same order as <code>Double.compare</code>: NaN is greater than any other value and equal to itself, and -0.0 is
+     * less than 0.0, so that sorting a column holding NaN values is consistent.
+     */
+    protected static int compareValues( double a, double b )
+    {
+        if ( a < b )
+        {
+            return -1;
+        }
+        if ( a > b )
+        {
+            return 1;
+        }
+        if ( a == b )
+        {
+            // 1 / -0.0 is -Infinity
+            return a != 0 ? 0 : compareValues( 1 / a, 1 / b );
+        }
+        return a == a ? -1 : ( b == b ? 1 : 0 );
+    }
+
+    /**
+     * Same order as <code>Float.compare</code>, widening to double keeps both NaN and the sign of zero
+     */
+    protected static int compareValues( float a, float b )
+    {
+        return compareValues( (double) a, (double) b );
+    }
+
+    protected static int compareValues( boolean a, boolean b )
+    {
+        return a == b ? 0 : ( a ? 1 : -1 );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    protected static int compareValues( Object a, Object b )
+    {
+        if ( a == b )
+        {
+            return 0;
+        }
+        if ( a == null )
+        {
+            return -1;
+        }
+        if ( b == null )
+        {
+            return 1;
+        }
+        return ( (Comparable<Object>) a ).compareTo( b );
+    }
+
+    protected static boolean equalValues( int a, int b )
+    {
+        return a == b;
+    }
+
+    protected static boolean equalValues( long a, long b )
+    {
+        return a == b;
+    }
+
+    /**
+     * NaN values are equal, so that an unchanged NaN property is not reported as changed
+     */
+    protected static boolean equalValues( double a, double b )
+    {
+        return a == b || ( a != a && b != b );
+    }
+
+    protected static boolean equalValues( boolean a, boolean b )
+    {
+        return a == b;
+    }
+
+    /**
+     * Arrays are equal when their elements are, other values use <code>equals</code>
+     */
+    protected static boolean equalValues( Object a, Object b )
+    {
+        if ( a == b )
+        {
+            return true;
+        }
+        if ( a == null || b == null )
+        {
+            return false;
+        }
+        Object[] x = toObjectArray( a );
+        Object[] y = x != null ? toObjectArray( b ) : null;
+        if ( x == null || y == null )
+        {
+            return a.equals( b );
+        }
+        if ( x.length != y.length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < x.length; i++ )
+        {
+            if ( !equalValues( x[i], y[i] ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static int hashValue( int a )
+    {
+        return a;
+    }
+
+    protected static int hashValue( long a )
+    {
+        return (int) ( a ^ ( a >>> 32 ) );
+    }
+
+    protected static int hashValue( double a )
+    {
+        // no Double.doubleToLongBits in GWT, keep some fractional bits
+        return hashValue( (long) ( a * 65536 ) );
+    }
+
+    protected static int hashValue( boolean a )
+    {
+        return a ? 1231 : 1237;
+    }
+
+    /**
+     * Arrays are hashed from their elements, consistent with {@link #equalValues(Object, Object)}
+     */
+    protected static int hashValue( Object a )
+    {
+        if ( a == null )
+        {
+            return 0;
+        }
+        Object[] elements = toObjectArray( a );
+        if ( elements == null )
+        {
+            return a.hashCode();
+        }
+        int hash = 1;
+        for ( Object element : elements )
+        {
+            hash = 31 * hash + hashValue( element );
+        }
+        return hash;
+    }
+
+    /**
+     * GWT has no reflective access to arrays, so primitive arrays are boxed to compare their elements.
+     * @return the array elements, or <code>null</code> if the value is not an array
+     */
+    private static Object[] toObjectArray( Object value )
+    {
+        if ( value instanceof Object[] )
+        {
+            return (Object[]) value;
+        }
+        Object[] elements = null;
+        if ( value instanceof int[] )
+        {
+            int[] array = (int[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Integer( array[i] );
+            }
+        }
+        else if ( value instanceof long[] )
+        {
+            long[] array = (long[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Long( array[i] );
+            }
+        }
+        else if ( value instanceof double[] )
+        {
+            double[] array = (double[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Double( array[i] );
+            }
+        }
+        else if ( value instanceof float[] )
+        {
+            float[] array = (float[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Float( array[i] );
+            }
+        }
+        else if ( value instanceof boolean[] )
+        {
+            boolean[] array = (boolean[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = Boolean.valueOf( array[i] );
+            }
+        }
+        else if ( value instanceof char[] )
+        {
+            char[] array = (char[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Character( array[i] );
+            }
+        }
+        else if ( value instanceof byte[] )
+        {
+            byte[] array = (byte[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Byte( array[i] );
+            }
+        }
+        else if ( value instanceof short[] )
+        {
+            short[] array = (short[]) value;
+            elements = new Object[array.length];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                elements[i] = new Short( array[i] );
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Set the bit of a changed property
+     * @param position the property index in the bean resolved property descriptors, or -1
+     */
+    protected static void markChanged( int[] changes, int position )
+    {
+        if ( position >= 0 )
+        {
+            changes[position >> 5] |= 1 << ( position & 31 );
+        }
+    }
+}
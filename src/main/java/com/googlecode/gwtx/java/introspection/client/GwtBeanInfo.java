@@ -17,35 +17,241 @@
 
 package com.googlecode.gwtx.java.introspection.client;
 
-import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
+import java.beans.SimpleBeanInfo;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * @author ndeloof
+ * BeanInfo of an introspection-enabled bean. Property descriptors are registered once, then the BeanInfo is frozen
+ * into an immutable array with a name index for fast lookup.
+ * <p>
+ * A BeanInfo only holds the properties declared by its bean class. Inherited properties are merged from the
+ * superclass BeanInfo on first access, so that they are shared by all subclasses. The resolved descriptors are
+ * safely published to concurrent readers when the BeanInfo is used on the JVM.
  *
+ * @author ndeloof
  */
-public class GwtBeanInfo implements BeanInfo
+public class GwtBeanInfo
+    extends SimpleBeanInfo
 {
+    private static final PropertyDescriptor[] NO_DESCRIPTORS = new PropertyDescriptor[0];
+
+    private GwtBeanAccessor accessor;
+
+    private Class<?> superClass;
 
     private List<PropertyDescriptor> descriptors;
 
+    private volatile PropertyDescriptor[] declared;
+
+    private volatile PropertyDescriptor[] all;
+
+    private volatile Map<String, Integer> indexes;
+
+    private volatile int[] positions;
+
+    public GwtBeanInfo()
+    {
+        super();
+    }
+
+    /**
+     * @param accessor the generated accessor for the bean properties
+     */
+    public GwtBeanInfo( GwtBeanAccessor accessor )
+    {
+        super();
+        this.accessor = accessor;
+    }
+
+    /**
+     * @param accessor the generated accessor for the bean properties
+     * @param superClass the introspection-enabled superclass, to inherit properties from
+     */
+    public GwtBeanInfo( GwtBeanAccessor accessor, Class<?> superClass )
+    {
+        super();
+        this.accessor = accessor;
+        this.superClass = superClass;
+    }
+
+    /**
+     * @return the generated accessor for the bean properties, or <code>null</code> if the BeanInfo has not been
+     * generated
+     */
+    public GwtBeanAccessor getAccessor()
+    {
+        return accessor;
+    }
+
     /**
      * {@inheritDoc}
+     * <p>
+     * The returned array is shared and must not be modified.
      * @see java.beans.BeanInfo#getPropertyDescriptors()
      */
     public PropertyDescriptor[] getPropertyDescriptors()
     {
-        return descriptors.toArray( new PropertyDescriptor[ descriptors.size() ] );
+        resolve();
+        return all;
+    }
+
+    /**
+     * @param name the property name
+     * @return the property descriptor, or <code>null</code> if the bean has no such property
+     */
+    public PropertyDescriptor getPropertyDescriptor( String name )
+    {
+        int index = indexOf( name );
+        return index < 0 ? null : all[index];
+    }
+
+    /**
+     * @param name the property name
+     * @return the index of the property in the descriptors array, or -1 if the bean has no such property
+     */
+    public int indexOf( String name )
+    {
+        resolve();
+        Integer index = indexes.get( name );
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Compare the readable properties of two beans, including inherited ones, and mark the changed ones
+     * @param changes bitset of changed properties, by index in the descriptors array
+     */
+    void diff( Object a, Object b, int[] changes )
+    {
+        resolve();
+        if ( superClass != null )
+        {
+            try
+            {
+                GwtIntrospector.__getBeanInfo( superClass ).diff( a, b, changes );
+            }
+            catch ( IntrospectionException e )
+            {
+                throw new IllegalStateException( e.getMessage() );
+            }
+        }
+        if ( accessor != null )
+        {
+            accessor.diff( a, b, positions, changes );
+        }
     }
 
     public void addPropertyDescriptor( PropertyDescriptor descriptor )
     {
+        if ( declared != null )
+        {
+            throw new IllegalStateException( "BeanInfo is frozen, no more property can be registered" );
+        }
         if (descriptors == null)
         {
             descriptors = new ArrayList<PropertyDescriptor>();
         }
         descriptors.add( descriptor );
     }
+
+    /**
+     * Complete the registration of property descriptors.
+     */
+    public void freeze()
+    {
+        if ( declared != null )
+        {
+            return;
+        }
+        if ( descriptors == null )
+        {
+            declared = NO_DESCRIPTORS;
+        }
+        else
+        {
+            declared = descriptors.toArray( new PropertyDescriptor[ descriptors.size() ] );
+        }
+    }
+
+    /**
+     * @return the index in the descriptors array of each accessor property, or -1 if the property is not registered
+     */
+    private int[] getPositions( Map<String, Integer> map )
+    {
+        int size = 0;
+        for ( PropertyDescriptor descriptor : declared )
+        {
+            if ( descriptor instanceof GwtPropertyDescriptor )
+            {
+                size = Math.max( size, ( (GwtPropertyDescriptor) descriptor ).getIndex() + 1 );
+            }
+        }
+        int[] positions = new int[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            positions[i] = -1;
+        }
+        for ( PropertyDescriptor descriptor : declared )
+        {
+            if ( descriptor instanceof GwtPropertyDescriptor )
+            {
+                positions[( (GwtPropertyDescriptor) descriptor ).getIndex()] =
+                    map.get( descriptor.getName() ).intValue();
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Merge the inherited properties and build the lookup index. A property redeclared by the bean class replaces
+     * the inherited one, at the same index. Concurrent resolution is harmless, as the index is published before the
+     * descriptors array.
+     */
+    private void resolve()
+    {
+        if ( all != null )
+        {
+            return;
+        }
+        freeze();
+        PropertyDescriptor[] inherited = NO_DESCRIPTORS;
+        if ( superClass != null )
+        {
+            try
+            {
+                inherited = GwtIntrospector.__getBeanInfo( superClass ).getPropertyDescriptors();
+            }
+            catch ( IntrospectionException e )
+            {
+                throw new IllegalStateException( e.getMessage() );
+            }
+        }
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        List<PropertyDescriptor> merged = new ArrayList<PropertyDescriptor>( inherited.length + declared.length );
+        for ( PropertyDescriptor descriptor : inherited )
+        {
+            map.put( descriptor.getName(), new Integer( merged.size() ) );
+            merged.add( descriptor );
+        }
+        for ( PropertyDescriptor descriptor : declared )
+        {
+            Integer index = map.get( descriptor.getName() );
+            if ( index != null )
+            {
+                merged.set( index.intValue(), descriptor );
+            }
+            else
+            {
+                map.put( descriptor.getName(), new Integer( merged.size() ) );
+                merged.add( descriptor );
+            }
+        }
+        positions = getPositions( map );
+        indexes = map;
+        all = merged.toArray( new PropertyDescriptor[ merged.size() ] );
+    }
 }
@@ -21,13 +21,19 @@ import java.util.HashMap;
 import java.util.Map;
 
 import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
 
 /**
+ * Registry of the BeanInfos generated for introspection-enabled beans. On the JVM, bean classes without a generated
+ * BeanInfo are introspected by reflection, so that code shared with the server can use the same API.
+ *
  * @author ndeloof
  */
 public class GwtIntrospector
 {
-    private static Map<Class<?>, GwtBeanInfo> beanInfos = new HashMap<Class<?>, GwtBeanInfo>();
+    private static Registry<Class<?>, GwtBeanInfo> beanInfos = new Registry<Class<?>, GwtBeanInfo>();
+
+    private static Registry<Class<?>, GwtBeanInfoFactory> factories = new Registry<Class<?>, GwtBeanInfoFactory>();
 
     protected static GwtBeanInfo __getBeanInfo( Class<?> beanClass )
         throws IntrospectionException
@@ -35,14 +41,142 @@ public class GwtIntrospector
         GwtBeanInfo beanInfo = beanInfos.get( beanClass );
         if ( beanInfo == null )
         {
-            throw new IntrospectionException( "Class has not been enabled for introspection in GWT "
-                + beanClass.getName() );
+            GwtBeanInfoFactory factory = factories.get( beanClass );
+            if ( factory == null )
+            {
+                // server-side code may use the introspector without generated BeanInfos
+                factory = ReflectionBeanInfoFactory.lookup( beanClass );
+            }
+            if ( factory == null )
+            {
+                throw new IntrospectionException( "Class has not been enabled for introspection in GWT "
+                    + beanClass.getName() );
+            }
+            beanInfo = factory.createBeanInfo();
+            beanInfo.freeze();
+            beanInfo = beanInfos.putIfAbsent( beanClass, beanInfo );
         }
         return beanInfo;
     }
 
+    /**
+     * Register the factory used to build the bean BeanInfo on first lookup
+     */
+    public static void setBeanInfoFactory( Class<?> beanClass, GwtBeanInfoFactory factory )
+    {
+        factories.put( beanClass, factory );
+    }
+
     public static void setBeanInfo( Class<?> beanClass, GwtBeanInfo beanInfo )
     {
+        beanInfo.freeze();
         beanInfos.put( beanClass, beanInfo );
     }
+
+    /**
+     * Copy all readable and writable properties from <code>src</code> to <code>dst</code>, using the generated
+     * accessor of the bean class.
+     */
+    public static void copyProperties( Class<?> beanClass, Object src, Object dst )
+        throws IntrospectionException
+    {
+        getAccessor( beanClass ).copy( src, dst );
+    }
+
+    /**
+     * Copy the named properties from <code>src</code> to <code>dst</code>, using the generated accessor of the bean
+     * class.
+     */
+    public static void copyProperties( Class<?> beanClass, Object src, Object dst, String... propertyNames )
+        throws IntrospectionException
+    {
+        GwtBeanInfo beanInfo = __getBeanInfo( beanClass );
+        for ( String name : propertyNames )
+        {
+            GwtPropertyDescriptor descriptor = getPropertyDescriptor( beanInfo, beanClass, name );
+            descriptor.getAccessor().copy( src, dst, descriptor.getIndex() );
+        }
+    }
+
+    /**
+     * @return a new Map with the values of all readable properties, by property name
+     */
+    public static Map<String, Object> toMap( Class<?> beanClass, Object bean )
+        throws IntrospectionException
+    {
+        GwtBeanInfo beanInfo = __getBeanInfo( beanClass );
+        int size = beanInfo.getPropertyDescriptors().length;
+        Map<String, Object> map = new HashMap<String, Object>( size * 4 / 3 + 1 );
+        getAccessor( beanClass ).toMap( bean, map );
+        return map;
+    }
+
+    /**
+     * Set the bean writable properties that have an entry in the map.
+     * @return the bean
+     */
+    public static <T> T fromMap( Class<?> beanClass, Map<String, Object> map, T bean )
+        throws IntrospectionException
+    {
+        getAccessor( beanClass ).fromMap( map, bean );
+        return bean;
+    }
+
+    /**
+     * Compare the readable properties of two beans, using the generated accessors of the bean class and its
+     * superclasses. Array values are compared element by element. Other values, including nested beans, are compared
+     * with their <code>equals</code> method, so a nested bean that doesn't override it is compared by identity; call
+     * <code>diff</code> on the nested beans to compare their properties.
+     * @return the changed properties
+     */
+    public static BeanDiff diff( Class<?> beanClass, Object a, Object b )
+        throws IntrospectionException
+    {
+        GwtBeanInfo beanInfo = __getBeanInfo( beanClass );
+        int[] changes = new int[( beanInfo.getPropertyDescriptors().length + 31 ) >> 5];
+        beanInfo.diff( a, b, changes );
+        return new BeanDiff( beanInfo, changes );
+    }
+
+    /**
+     * @return <code>true</code> if all readable properties of the two beans are equal
+     */
+    public static boolean equalProperties( Class<?> beanClass, Object a, Object b )
+        throws IntrospectionException
+    {
+        return diff( beanClass, a, b ).isEmpty();
+    }
+
+    /**
+     * @return a hash of the readable properties of the bean, consistent with
+     * {@link #equalProperties(Class, Object, Object)}
+     */
+    public static int hash( Class<?> beanClass, Object bean )
+        throws IntrospectionException
+    {
+        return getAccessor( beanClass ).hash( bean );
+    }
+
+    private static GwtBeanAccessor getAccessor( Class<?> beanClass )
+        throws IntrospectionException
+    {
+        GwtBeanAccessor accessor = __getBeanInfo( beanClass ).getAccessor();
+        if ( accessor == null )
+        {
+            throw new IntrospectionException( "No generated accessor for " + beanClass.getName() );
+        }
+        return accessor;
+    }
+
+    private static GwtPropertyDescriptor getPropertyDescriptor( GwtBeanInfo beanInfo, Class<?> beanClass,
+                                                                String name )
+        throws IntrospectionException
+    {
+        PropertyDescriptor descriptor = beanInfo.getPropertyDescriptor( name );
+        if ( !( descriptor instanceof GwtPropertyDescriptor ) )
+        {
+            throw new IntrospectionException( "No generated property " + name + " in " + beanClass.getName() );
+        }
+        return (GwtPropertyDescriptor) descriptor;
+    }
 }
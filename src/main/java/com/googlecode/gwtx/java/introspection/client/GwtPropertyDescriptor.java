@@ -0,0 +1,135 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+
+/**
+ * PropertyDescriptor for a generated bean accessor. In addition to the read and write <code>Method</code>s, it
+ * exposes primitive accessors that don't box the property value.
+ * <p>
+ * In GWT the read and write methods delegate to the accessor. On the JVM they are the bean reflective methods.
+ *
+ * @author ndeloof
+ */
+public class GwtPropertyDescriptor
+    extends PropertyDescriptor
+{
+    private final GwtBeanAccessor accessor;
+
+    private final int index;
+
+    private final Class<?> propertyType;
+
+    public GwtPropertyDescriptor( String propertyName, Class<?> propertyType, GwtBeanAccessor accessor, int index,
+                                  Method readMethod, Method writeMethod )
+        throws IntrospectionException
+    {
+        super( propertyName, readMethod, writeMethod );
+        this.propertyType = propertyType;
+        this.accessor = accessor;
+        this.index = index;
+    }
+
+    public Class<?> getPropertyType()
+    {
+        return propertyType;
+    }
+
+    public GwtBeanAccessor getAccessor()
+    {
+        return accessor;
+    }
+
+    /**
+     * @return the property index in the bean accessor
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public Object getValue( Object bean )
+    {
+        return accessor.get( bean, index );
+    }
+
+    public void setValue( Object bean, Object value )
+    {
+        accessor.set( bean, index, value );
+    }
+
+    /**
+     * Compare the property of two beans
+     * @see GwtBeanAccessor#compare(Object, Object, int)
+     */
+    public int compare( Object a, Object b )
+    {
+        return accessor.compare( a, b, index );
+    }
+
+    /**
+     * @see GwtBeanAccessor#isComparable(int)
+     */
+    public boolean isComparable()
+    {
+        return accessor.isComparable( index );
+    }
+
+    public int getInt( Object bean )
+    {
+        return accessor.getInt( bean, index );
+    }
+
+    public long getLong( Object bean )
+    {
+        return accessor.getLong( bean, index );
+    }
+
+    public double getDouble( Object bean )
+    {
+        return accessor.getDouble( bean, index );
+    }
+
+    public boolean getBoolean( Object bean )
+    {
+        return accessor.getBoolean( bean, index );
+    }
+
+    public void setInt( Object bean, int value )
+    {
+        accessor.setInt( bean, index, value );
+    }
+
+    public void setLong( Object bean, long value )
+    {
+        accessor.setLong( bean, index, value );
+    }
+
+    public void setDouble( Object bean, double value )
+    {
+        accessor.setDouble( bean, index, value );
+    }
+
+    public void setBoolean( Object bean, boolean value )
+    {
+        accessor.setBoolean( bean, index, value );
+    }
+}
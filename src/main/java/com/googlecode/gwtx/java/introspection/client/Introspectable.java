@@ -0,0 +1,54 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restrict the properties of a bean class that are enabled for introspection. Accessors are only generated for the
+ * selected properties, so that unused ones don't add to the compiled output.
+ * <p>
+ * The selection applies to the properties declared by the annotated class. Inherited properties are selected by the
+ * superclass annotation.
+ *
+ * <pre>
+ * &#64;Introspectable( include = { "name", "address" } )
+ * public class Person
+ * </pre>
+ *
+ * @author ndeloof
+ */
+@Documented
+@Retention( RetentionPolicy.RUNTIME )
+@Target( ElementType.TYPE )
+public @interface Introspectable
+{
+    /**
+     * @return names of the properties to be introspected. All properties are included when empty.
+     */
+    String[] include() default {};
+
+    /**
+     * @return names of the properties to be ignored
+     */
+    String[] exclude() default {};
+}
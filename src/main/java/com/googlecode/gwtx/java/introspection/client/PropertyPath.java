@@ -0,0 +1,140 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+
+/**
+ * A nested property path, like <code>"address.city.name"</code>, resolved once to the chain of generated property
+ * accessors. Compiled paths are cached, so that the path String is only parsed on first use.
+ * <p>
+ * All bean classes along the path must have been enabled for introspection.
+ *
+ * @author ndeloof
+ */
+public class PropertyPath
+{
+    private static Registry<String, PropertyPath> paths = new Registry<String, PropertyPath>();
+
+    private final String path;
+
+    private final GwtPropertyDescriptor[] descriptors;
+
+    private PropertyPath( String path, GwtPropertyDescriptor[] descriptors )
+    {
+        super();
+        this.path = path;
+        this.descriptors = descriptors;
+    }
+
+    /**
+     * @param beanClass the root bean class
+     * @param path dot-separated property names
+     * @return the compiled property path
+     * @throws IntrospectionException some bean class has not been enabled for introspection, or has no such
+     * property
+     */
+    public static PropertyPath compile( Class<?> beanClass, String path )
+        throws IntrospectionException
+    {
+        String key = beanClass.getName() + ':' + path;
+        PropertyPath compiled = paths.get( key );
+        if ( compiled == null )
+        {
+            String[] names = path.split( "\\." );
+            GwtPropertyDescriptor[] descriptors = new GwtPropertyDescriptor[names.length];
+            Class<?> type = beanClass;
+            for ( int i = 0; i < names.length; i++ )
+            {
+                PropertyDescriptor descriptor = GwtIntrospector.__getBeanInfo( type ).getPropertyDescriptor( names[i] );
+                if ( !( descriptor instanceof GwtPropertyDescriptor ) )
+                {
+                    throw new IntrospectionException( "No generated property " + names[i] + " in " + type.getName() );
+                }
+                if ( i < names.length - 1 && descriptor.getReadMethod() == null )
+                {
+                    throw new IntrospectionException( "Property " + names[i] + " of " + type.getName()
+                        + " is not readable" );
+                }
+                descriptors[i] = (GwtPropertyDescriptor) descriptor;
+                type = descriptor.getPropertyType();
+            }
+            compiled = paths.putIfAbsent( key, new PropertyPath( path, descriptors ) );
+        }
+        return compiled;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return the type of the last property in the path
+     */
+    public Class<?> getPropertyType()
+    {
+        return descriptors[descriptors.length - 1].getPropertyType();
+    }
+
+    /**
+     * @param bean the root bean
+     * @return the property value, or <code>null</code> if the bean or an intermediate property is <code>null</code>
+     */
+    public Object get( Object bean )
+    {
+        Object value = bean;
+        for ( GwtPropertyDescriptor descriptor : descriptors )
+        {
+            if ( value == null )
+            {
+                return null;
+            }
+            value = descriptor.getValue( value );
+        }
+        return value;
+    }
+
+    /**
+     * @param bean the root bean
+     * @param value the new property value
+     * @return <code>false</code> if the property could not be set as the bean or an intermediate property is
+     * <code>null</code>
+     */
+    public boolean set( Object bean, Object value )
+    {
+        Object target = bean;
+        int last = descriptors.length - 1;
+        for ( int i = 0; i < last && target != null; i++ )
+        {
+            target = descriptors[i].getValue( target );
+        }
+        if ( target == null )
+        {
+            return false;
+        }
+        descriptors[last].setValue( target, value );
+        return true;
+    }
+
+    public String toString()
+    {
+        return path;
+    }
+}
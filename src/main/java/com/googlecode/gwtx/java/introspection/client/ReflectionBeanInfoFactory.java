@@ -0,0 +1,555 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Server-side BeanInfo factory, used when no generated introspector has been registered for a bean class. Shared
+ * code can then use the GwtIntrospector API on the JVM as it does in GWT.
+ * <p>
+ * Properties are looked up with the same rules as the <code>PropertyDescriptorsGenerator</code> : public, non static
+ * <code>get</code>/<code>is</code>/<code>set</code> methods declared by the bean class, restricted by its
+ * {@link Introspectable} annotation. Inherited properties are registered by the superclass BeanInfo. The GWT
+ * implementation of this class is super-sourced and never provides a factory.
+ *
+ * @author ndeloof
+ */
+class ReflectionBeanInfoFactory
+    implements GwtBeanInfoFactory
+{
+    private final Class<?> beanClass;
+
+    private ReflectionBeanInfoFactory( Class<?> beanClass )
+    {
+        super();
+        this.beanClass = beanClass;
+    }
+
+    /**
+     * Abstract classes are accepted, as they hold the properties inherited by concrete beans, but their accessor
+     * can't create instances.
+     * @return a factory for the bean class, or <code>null</code> if the class cannot be introspected
+     */
+    static GwtBeanInfoFactory lookup( Class<?> beanClass )
+    {
+        // enum constants with a body are anonymous subclasses of the enum
+        if ( beanClass.isPrimitive() || beanClass.isArray() || beanClass.isInterface() || beanClass.isAnnotation()
+            || Enum.class.isAssignableFrom( beanClass ) || isLibraryType( beanClass ) )
+        {
+            return null;
+        }
+        return new ReflectionBeanInfoFactory( beanClass );
+    }
+
+    public GwtBeanInfo createBeanInfo()
+    {
+        Class<?> superClass = getIntrospectableSuperclass( beanClass );
+        List<Property> properties = new ArrayList<Property>( lookupJavaBeanPropertyAccessors( beanClass ).values() );
+        if ( superClass != null )
+        {
+            // a property redeclared by the type may still use an inherited getter or setter
+            Map<String, Property> inherited = lookupInheritedProperties( superClass );
+            for ( Property property : properties )
+            {
+                Property parent = inherited.get( property.name );
+                if ( parent == null || parent.type != property.type )
+                {
+                    // an inherited accessor of another type doesn't belong to the property
+                    continue;
+                }
+                if ( property.getter == null )
+                {
+                    property.getter = parent.getter;
+                }
+                if ( property.setter == null )
+                {
+                    property.setter = parent.setter;
+                }
+            }
+        }
+
+        ReflectionBeanAccessor accessor = new ReflectionBeanAccessor( beanClass, superClass, properties );
+        GwtBeanInfo beanInfo = new GwtBeanInfo( accessor, superClass );
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            try
+            {
+                beanInfo.addPropertyDescriptor( new GwtPropertyDescriptor( property.name, property.type, accessor, i,
+                                                                           property.getter, property.setter ) );
+            }
+            catch ( IntrospectionException e )
+            {
+                // invalid accessors are ignored, as the generator does
+            }
+        }
+        return beanInfo;
+    }
+
+    /**
+     * Same rule as the generator: stop at the first superclass that is a library class or declares no property.
+     */
+    private static Class<?> getIntrospectableSuperclass( Class<?> type )
+    {
+        Class<?> superclass = type.getSuperclass();
+        if ( superclass == null || isLibraryType( superclass )
+            || lookupJavaBeanPropertyAccessors( superclass ).isEmpty() )
+        {
+            return null;
+        }
+        return superclass;
+    }
+
+    private static boolean isLibraryType( Class<?> type )
+    {
+        String name = type.getName();
+        return name.startsWith( "java." ) || name.startsWith( "javax." ) || name.startsWith( "com.google.gwt." );
+    }
+
+    private static Map<String, Property> lookupInheritedProperties( Class<?> type )
+    {
+        Map<String, Property> properties = new TreeMap<String, Property>();
+        for ( Class<?> superclass = type; superclass != null; superclass = getIntrospectableSuperclass( superclass ) )
+        {
+            for ( Property property : lookupJavaBeanPropertyAccessors( superclass ).values() )
+            {
+                if ( !properties.containsKey( property.name ) )
+                {
+                    properties.put( property.name, property );
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Lookup any public method declared by the type to match JavaBeans accessor convention.
+     * @return javabean properties, sorted by name
+     */
+    private static Map<String, Property> lookupJavaBeanPropertyAccessors( Class<?> type )
+    {
+        Map<String, Property> properties = new TreeMap<String, Property>();
+        for ( Method method : type.getDeclaredMethods() )
+        {
+            int modifiers = method.getModifiers();
+            if ( !Modifier.isPublic( modifiers ) || Modifier.isStatic( modifiers ) || method.isBridge()
+                || method.isSynthetic() )
+            {
+                continue;
+            }
+            String methodName = method.getName();
+            Class<?>[] parameters = method.getParameterTypes();
+            String name;
+            Class<?> propertyType;
+            boolean setter = false;
+            if ( methodName.startsWith( "set" ) && parameters.length == 1 )
+            {
+                name = Introspector.decapitalize( methodName.substring( 3 ) );
+                propertyType = parameters[0];
+                setter = true;
+            }
+            else if ( methodName.startsWith( "get" ) && parameters.length == 0 )
+            {
+                name = Introspector.decapitalize( methodName.substring( 3 ) );
+                propertyType = method.getReturnType();
+            }
+            else if ( methodName.startsWith( "is" ) && parameters.length == 0 )
+            {
+                name = Introspector.decapitalize( methodName.substring( 2 ) );
+                propertyType = method.getReturnType();
+            }
+            else
+            {
+                continue;
+            }
+            if ( name.length() == 0 || propertyType == Void.TYPE )
+            {
+                continue;
+            }
+            Property property = properties.get( name );
+            if ( property == null )
+            {
+                property = new Property( name, propertyType );
+                properties.put( name, property );
+            }
+            else if ( property.type != propertyType )
+            {
+                // accessors don't agree on the property type
+                continue;
+            }
+            makeAccessible( method );
+            if ( setter )
+            {
+                property.setter = method;
+            }
+            else
+            {
+                property.getter = method;
+            }
+        }
+        return selectProperties( type, properties );
+    }
+
+    /**
+     * Apply the {@link Introspectable} selection of the type to the properties it declares
+     */
+    private static Map<String, Property> selectProperties( Class<?> type, Map<String, Property> properties )
+    {
+        Introspectable introspectable = type.getAnnotation( Introspectable.class );
+        if ( introspectable == null )
+        {
+            return properties;
+        }
+        Map<String, Property> selected = properties;
+        if ( introspectable.include().length > 0 )
+        {
+            selected = new TreeMap<String, Property>();
+            for ( String name : introspectable.include() )
+            {
+                Property property = properties.get( name );
+                if ( property != null )
+                {
+                    selected.put( name, property );
+                }
+            }
+        }
+        for ( String name : introspectable.exclude() )
+        {
+            selected.remove( name );
+        }
+        return selected;
+    }
+
+    /**
+     * Public methods of a non-public bean class are not accessible by reflection unless access checks are disabled.
+     * This also skips the access check on every invocation.
+     */
+    private static void makeAccessible( Method method )
+    {
+        try
+        {
+            method.setAccessible( true );
+        }
+        catch ( SecurityException e )
+        {
+            // keep default access checks
+        }
+    }
+
+    private static class Property
+    {
+        private final String name;
+
+        private final Class<?> type;
+
+        private Method getter;
+
+        private Method setter;
+
+        public Property( String name, Class<?> type )
+        {
+            super();
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Accessor for the bean properties, dispatching to the reflective methods by property index. Inherited properties
+     * are handled by the superclass accessor.
+     */
+    private static class ReflectionBeanAccessor
+        extends GwtBeanAccessor
+    {
+        private static final Object[] NO_ARGS = new Object[0];
+
+        private final Class<?> beanClass;
+
+        private final Class<?> superClass;
+
+        private final String[] names;
+
+        private final Class<?>[] types;
+
+        private final Method[] getters;
+
+        private final Method[] setters;
+
+        private volatile GwtBeanAccessor parent;
+
+        public ReflectionBeanAccessor( Class<?> beanClass, Class<?> superClass, List<Property> properties )
+        {
+            super();
+            this.beanClass = beanClass;
+            this.superClass = superClass;
+            int size = properties.size();
+            names = new String[size];
+            types = new Class<?>[size];
+            getters = new Method[size];
+            setters = new Method[size];
+            for ( int i = 0; i < size; i++ )
+            {
+                Property property = properties.get( i );
+                names[i] = property.name;
+                types[i] = property.type;
+                getters[i] = property.getter;
+                setters[i] = property.setter;
+            }
+        }
+
+        public Object newInstance()
+        {
+            if ( Modifier.isAbstract( beanClass.getModifiers() ) )
+            {
+                throw new UnsupportedOperationException( beanClass.getName() + " cannot be instantiated" );
+            }
+            try
+            {
+                return beanClass.newInstance();
+            }
+            catch ( InstantiationException e )
+            {
+                throw new UnsupportedOperationException( beanClass.getName() + " cannot be instantiated" );
+            }
+            catch ( IllegalAccessException e )
+            {
+                throw new UnsupportedOperationException( beanClass.getName() + " has no public default constructor" );
+            }
+        }
+
+        public Object get( Object bean, int index )
+        {
+            Method getter = getters[index];
+            if ( getter == null )
+            {
+                throw new IllegalArgumentException( "Property " + names[index] + " is not readable" );
+            }
+            return invoke( getter, bean, NO_ARGS );
+        }
+
+        public void set( Object bean, int index, Object value )
+        {
+            Method setter = setters[index];
+            if ( setter == null )
+            {
+                throw new IllegalArgumentException( "Property " + names[index] + " is not writable" );
+            }
+            invoke( setter, bean, new Object[] { convert( types[index], value ) } );
+        }
+
+        public void copy( Object src, Object dst )
+        {
+            GwtBeanAccessor parent = getParent();
+            if ( parent != null )
+            {
+                parent.copy( src, dst );
+            }
+            for ( int i = 0; i < names.length; i++ )
+            {
+                if ( getters[i] != null && setters[i] != null )
+                {
+                    invoke( setters[i], dst, new Object[] { invoke( getters[i], src, NO_ARGS ) } );
+                }
+            }
+        }
+
+        public void copy( Object src, Object dst, int index )
+        {
+            set( dst, index, get( src, index ) );
+        }
+
+        public void toMap( Object bean, Map<String, Object> map )
+        {
+            GwtBeanAccessor parent = getParent();
+            if ( parent != null )
+            {
+                parent.toMap( bean, map );
+            }
+            for ( int i = 0; i < names.length; i++ )
+            {
+                if ( getters[i] != null )
+                {
+                    map.put( names[i], invoke( getters[i], bean, NO_ARGS ) );
+                }
+            }
+        }
+
+        public void fromMap( Map<String, Object> map, Object bean )
+        {
+            GwtBeanAccessor parent = getParent();
+            if ( parent != null )
+            {
+                parent.fromMap( map, bean );
+            }
+            for ( int i = 0; i < names.length; i++ )
+            {
+                if ( setters[i] == null || !map.containsKey( names[i] ) )
+                {
+                    continue;
+                }
+                Object value = map.get( names[i] );
+                if ( value == null && types[i].isPrimitive() )
+                {
+                    continue;
+                }
+                invoke( setters[i], bean, new Object[] { convert( types[i], value ) } );
+            }
+        }
+
+        public int compare( Object a, Object b, int index )
+        {
+            if ( !isComparable( index ) )
+            {
+                throw new IllegalArgumentException( "Property " + names[index] + " is not comparable" );
+            }
+            return compareValues( get( a, index ), get( b, index ) );
+        }
+
+        public boolean isComparable( int index )
+        {
+            return getters[index] != null
+                && ( types[index].isPrimitive() || Comparable.class.isAssignableFrom( types[index] ) );
+        }
+
+        public void diff( Object a, Object b, int[] positions, int[] changes )
+        {
+            for ( int i = 0; i < names.length; i++ )
+            {
+                if ( getters[i] != null && !equalValues( get( a, i ), get( b, i ) ) )
+                {
+                    markChanged( changes, positions[i] );
+                }
+            }
+        }
+
+        public int hash( Object bean )
+        {
+            GwtBeanAccessor parent = getParent();
+            int hash = parent != null ? parent.hash( bean ) : 0;
+            for ( int i = 0; i < names.length; i++ )
+            {
+                if ( getters[i] != null )
+                {
+                    hash = 31 * hash + hashValue( get( bean, i ) );
+                }
+            }
+            return hash;
+        }
+
+        /**
+         * @return the superclass accessor, resolved on first use as the superclass BeanInfo may be registered later
+         */
+        private GwtBeanAccessor getParent()
+        {
+            if ( superClass == null )
+            {
+                return null;
+            }
+            GwtBeanAccessor accessor = parent;
+            if ( accessor == null )
+            {
+                try
+                {
+                    accessor = GwtIntrospector.__getBeanInfo( superClass ).getAccessor();
+                }
+                catch ( IntrospectionException e )
+                {
+                    throw new IllegalStateException( e.getMessage() );
+                }
+                parent = accessor;
+            }
+            return accessor;
+        }
+
+        /**
+         * Convert a Number to the primitive or wrapper property type, as a map may hold a different Number
+         * implementation
+         */
+        private static Object convert( Class<?> type, Object value )
+        {
+            if ( !( value instanceof Number ) || type.isInstance( value ) )
+            {
+                return value;
+            }
+            Number number = (Number) value;
+            if ( type == Integer.TYPE || type == Integer.class )
+            {
+                return Integer.valueOf( number.intValue() );
+            }
+            if ( type == Long.TYPE || type == Long.class )
+            {
+                return Long.valueOf( number.longValue() );
+            }
+            if ( type == Double.TYPE || type == Double.class )
+            {
+                return Double.valueOf( number.doubleValue() );
+            }
+            if ( type == Float.TYPE || type == Float.class )
+            {
+                return Float.valueOf( number.floatValue() );
+            }
+            if ( type == Short.TYPE || type == Short.class )
+            {
+                return Short.valueOf( number.shortValue() );
+            }
+            if ( type == Byte.TYPE || type == Byte.class )
+            {
+                return Byte.valueOf( number.byteValue() );
+            }
+            if ( type == Character.TYPE )
+            {
+                return Character.valueOf( (char) number.intValue() );
+            }
+            return value;
+        }
+
+        private static Object invoke( Method method, Object bean, Object[] args )
+        {
+            try
+            {
+                return method.invoke( bean, args );
+            }
+            catch ( IllegalAccessException e )
+            {
+                throw new IllegalStateException( "Cannot access " + method );
+            }
+            catch ( InvocationTargetException e )
+            {
+                Throwable cause = e.getCause();
+                if ( cause instanceof RuntimeException )
+                {
+                    throw (RuntimeException) cause;
+                }
+                if ( cause instanceof Error )
+                {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException( cause );
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.lang.reflect.Method;
+
+/**
+ * Read or write <code>Method</code> of a bean property, that delegates to the generated {@link GwtBeanAccessor}.
+ * <p>
+ * GWT only: on the JVM, <code>java.lang.reflect.Method</code> can't be extended.
+ *
+ * @author ndeloof
+ */
+public class GwtPropertyMethod
+    extends Method
+{
+    private final GwtBeanAccessor accessor;
+
+    private final int index;
+
+    private final boolean write;
+
+    public GwtPropertyMethod( GwtBeanAccessor accessor, int index, boolean write )
+    {
+        super();
+        this.accessor = accessor;
+        this.index = index;
+        this.write = write;
+    }
+
+    public Object invoke( Object bean, Object... args )
+    {
+        int count = args == null ? 0 : args.length;
+        if ( count != ( write ? 1 : 0 ) )
+        {
+            throw new IllegalArgumentException( "wrong number of arguments: " + count );
+        }
+        if ( write )
+        {
+            accessor.set( bean, index, args[0] );
+            return null;
+        }
+        return accessor.get( bean, index );
+    }
+}
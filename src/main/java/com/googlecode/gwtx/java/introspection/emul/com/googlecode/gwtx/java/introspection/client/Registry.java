@@ -0,0 +1,52 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry for introspection metadata, GWT implementation.
+ *
+ * @author ndeloof
+ */
+class Registry<K, V>
+{
+    private final Map<K, V> values = new HashMap<K, V>();
+
+    public V get( K key )
+    {
+        return values.get( key );
+    }
+
+    public void put( K key, V value )
+    {
+        values.put( key, value );
+    }
+
+    public V putIfAbsent( K key, V value )
+    {
+        V registered = values.get( key );
+        if ( registered != null )
+        {
+            return registered;
+        }
+        values.put( key, value );
+        return value;
+    }
+}
@@ -30,6 +30,12 @@ public class PropertyDescriptor
 	
 	private Class<?> propertyType;
 
+    public PropertyDescriptor( String propertyName, Method getter, Method setter )
+        throws IntrospectionException
+    {
+        this( propertyName, null, getter, setter );
+    }
+
     public PropertyDescriptor( String propertyName, Class<?> propertyType, Method getter, Method setter )
         throws IntrospectionException
     {
@@ -0,0 +1,302 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ */
+
+package com.googlecode.gwtx.rebind;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.TreeLogger.Type;
+import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JMethod;
+import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
+import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
+import com.google.gwt.user.rebind.SourceWriter;
+
+/**
+ * Generate a bound wrapper for a bean : a subclass which setters fire <code>PropertyChangeEvent</code>s through a
+ * PropertyChangeSupport shared by all properties. Properties are selected with the same rules as the
+ * {@link PropertyDescriptorsGenerator}, and must have a getter and a non final setter.
+ * <p>
+ * The PropertyChangeSupport is created when the first listener is registered, and setters only read the old value
+ * and build the event when the property has listeners. Primitive values are compared without boxing.
+ *
+ * @author ndeloof
+ */
+public class BoundBeanGenerator
+    extends PropertyDescriptorsGenerator
+{
+    public String generate( TreeLogger logger, GeneratorContext context, String typeName )
+        throws UnableToCompleteException
+    {
+        try
+        {
+            logger.log( Type.INFO, "Generate bound wrapper for " + typeName );
+            return generateBoundBean( logger, context, typeName );
+        }
+        catch ( UnableToCompleteException e )
+        {
+            // already logged
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            logger.log( TreeLogger.ERROR, null, e );
+            throw new UnableToCompleteException();
+        }
+    }
+
+    public String generateBoundBean( TreeLogger logger, GeneratorContext context, String typeName )
+        throws Exception
+    {
+        TypeOracle typeOracle = context.getTypeOracle();
+        JClassType type = typeOracle.getType( typeName );
+        checkExtensible( logger, type );
+        String packageName = type.getPackage().getName();
+        String className = type.getSimpleSourceName() + "Bound";
+        String qualifiedClassName = packageName + "." + className;
+        PrintWriter printWriter = context.tryCreate( logger, packageName, className );
+        if ( printWriter == null )
+        {
+            return qualifiedClassName;
+        }
+
+        ClassSourceFileComposerFactory composerFactory = new ClassSourceFileComposerFactory( packageName, className );
+        composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.BoundBean" );
+        composerFactory.addImport( "java.beans.PropertyChangeListener" );
+        composerFactory.addImport( "java.beans.PropertyChangeSupport" );
+        composerFactory.setSuperclass( type.getQualifiedSourceName() );
+        composerFactory.addImplementedInterface( "BoundBean" );
+        SourceWriter sw = composerFactory.createSourceWriter( context, printWriter );
+
+        writeListenerMethods( sw );
+        for ( Property property : lookupBoundProperties( logger, type ).values() )
+        {
+            sw.println();
+            writeBoundSetter( sw, property );
+        }
+        sw.commit( logger );
+        return qualifiedClassName;
+    }
+
+    /**
+     * Check the bound wrapper can subclass the bean and call its default constructor, so that a bean that can't be
+     * bound is reported here rather than by the compiler on the generated source.
+     */
+    private void checkExtensible( TreeLogger logger, JClassType type )
+        throws UnableToCompleteException
+    {
+        String error = null;
+        if ( type.isInterface() != null )
+        {
+            error = "is an interface";
+        }
+        else if ( type.isFinal() )
+        {
+            error = "is final";
+        }
+        else if ( type.isAbstract() )
+        {
+            error = "is abstract";
+        }
+        else if ( !type.isDefaultInstantiable() )
+        {
+            error = "has no accessible default constructor";
+        }
+        if ( error != null )
+        {
+            logger.log( Type.ERROR, "Cannot generate a bound wrapper for " + type.getQualifiedSourceName()
+                + ": the class " + error );
+            throw new UnableToCompleteException();
+        }
+    }
+
+    /**
+     * @return the properties declared or inherited by the type that have a getter and a non final setter
+     */
+    private Map<String, Property> lookupBoundProperties( TreeLogger logger, JClassType type )
+    {
+        Map<String, Property> properties = new TreeMap<String, Property>();
+        for ( JClassType t = type; t != null; t = t.getSuperclass() )
+        {
+            if ( t.getQualifiedSourceName().startsWith( "java." ) )
+            {
+                break;
+            }
+            for ( Property declared : lookupJavaBeanPropertyAccessors( logger, t ) )
+            {
+                // accessors overridden by subclasses take precedence
+                Property property = properties.get( declared.name );
+                if ( property == null )
+                {
+                    property = new Property( declared.name );
+                    property.propertyType = declared.propertyType;
+                    properties.put( declared.name, property );
+                }
+                else if ( !property.propertyType.equals( declared.propertyType ) )
+                {
+                    // the old value must have the setter parameter type
+                    logger.log( Type.WARN, "Property '" + declared.name + "' is declared as "
+                        + declared.propertyType + " by " + t.getQualifiedSourceName() + ", "
+                        + property.propertyType + " was expected" );
+                    continue;
+                }
+                if ( property.getter == null )
+                {
+                    property.getter = declared.getter;
+                }
+                if ( property.setter == null )
+                {
+                    property.setter = declared.setter;
+                }
+            }
+        }
+        for ( Property property : properties.values().toArray( new Property[properties.size()] ) )
+        {
+            if ( property.getter == null || property.setter == null )
+            {
+                properties.remove( property.name );
+            }
+            else if ( property.setter.isFinal() )
+            {
+                logger.log( Type.WARN, "Property '" + property.name + "' has a final setter and cannot be bound" );
+                properties.remove( property.name );
+            }
+        }
+        return properties;
+    }
+
+    private void writeListenerMethods( SourceWriter sw )
+    {
+        sw.println( "private PropertyChangeSupport changes;" );
+        sw.println();
+        sw.println( "public void addPropertyChangeListener( PropertyChangeListener listener )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "if ( changes == null )" );
+        sw.println( "{" );
+        sw.indentln( "changes = new PropertyChangeSupport( this );" );
+        sw.println( "}" );
+        sw.println( "changes.addPropertyChangeListener( listener );" );
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "if ( changes == null )" );
+        sw.println( "{" );
+        sw.indentln( "changes = new PropertyChangeSupport( this );" );
+        sw.println( "}" );
+        sw.println( "changes.addPropertyChangeListener( propertyName, listener );" );
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public void removePropertyChangeListener( PropertyChangeListener listener )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "if ( changes != null )" );
+        sw.println( "{" );
+        sw.indentln( "changes.removePropertyChangeListener( listener );" );
+        sw.println( "}" );
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public void removePropertyChangeListener( String propertyName, PropertyChangeListener listener )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "if ( changes != null )" );
+        sw.println( "{" );
+        sw.indentln( "changes.removePropertyChangeListener( propertyName, listener );" );
+        sw.println( "}" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write a setter that calls the bean setter, and fires a PropertyChangeEvent when the property has listeners and
+     * its value has changed
+     */
+    private void writeBoundSetter( SourceWriter sw, Property property )
+    {
+        JMethod setter = property.setter;
+        JType valueType = setter.getParameters()[0].getType().getErasedType();
+        String valueTypeName = valueType.getQualifiedSourceName();
+        JType returnType = setter.getReturnType().getErasedType();
+        boolean fluent = returnType != JPrimitiveType.VOID;
+        String call = "super." + setter.getName() + "( value );";
+
+        sw.print( "public " + returnType.getQualifiedSourceName() + " " + setter.getName() + "( " + valueTypeName
+            + " value )" );
+        JType[] exceptions = setter.getThrows();
+        for ( int i = 0; i < exceptions.length; i++ )
+        {
+            sw.print( ( i == 0 ? " throws " : ", " ) + exceptions[i].getQualifiedSourceName() );
+        }
+        sw.println();
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "if ( changes == null || !changes.hasListeners( \"" + property.name + "\" ) )" );
+        sw.println( "{" );
+        sw.indentln( fluent ? "return " + call : call );
+        if ( !fluent )
+        {
+            sw.indentln( "return;" );
+        }
+        sw.println( "}" );
+        sw.println( valueTypeName + " old = " + property.getter.getName() + "();" );
+        sw.println( fluent ? returnType.getQualifiedSourceName() + " result = " + call : call );
+
+        JPrimitiveType primitive = valueType.isPrimitive();
+        if ( primitive == null )
+        {
+            sw.println( "if ( old != value && ( old == null || !old.equals( value ) ) )" );
+        }
+        else if ( primitive == JPrimitiveType.DOUBLE || primitive == JPrimitiveType.FLOAT )
+        {
+            // don't fire when both values are NaN
+            sw.println( "if ( old != value && ( old == old || value == value ) )" );
+        }
+        else
+        {
+            sw.println( "if ( old != value )" );
+        }
+        sw.println( "{" );
+        if ( primitive == null || primitive == JPrimitiveType.INT || primitive == JPrimitiveType.BOOLEAN )
+        {
+            sw.indentln( "changes.firePropertyChange( \"" + property.name + "\", old, value );" );
+        }
+        else
+        {
+            String boxed = primitive.getQualifiedBoxedSourceName();
+            sw.indentln( "changes.firePropertyChange( \"" + property.name + "\", new " + boxed + "( old ), new "
+                + boxed + "( value ) );" );
+        }
+        sw.println( "}" );
+        if ( fluent )
+        {
+            sw.println( "return result;" );
+        }
+        sw.outdent();
+        sw.println( "}" );
+    }
+}
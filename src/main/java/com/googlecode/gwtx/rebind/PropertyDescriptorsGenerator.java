@@ -17,12 +17,16 @@
 package com.googlecode.gwtx.rebind;
 
 import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.lang.reflect.Method;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.GeneratorContext;
@@ -32,10 +36,13 @@ import com.google.gwt.core.ext.TreeLogger.Type;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.JMethod;
 import com.google.gwt.core.ext.typeinfo.JParameter;
+import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
 import com.google.gwt.core.ext.typeinfo.JType;
+import com.google.gwt.core.ext.typeinfo.NotFoundException;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
+import com.googlecode.gwtx.java.introspection.client.Introspectable;
 
 /**
  * @author ndeloof
@@ -43,7 +50,6 @@ import com.google.gwt.user.rebind.SourceWriter;
 public class PropertyDescriptorsGenerator
     extends Generator
 {
-
     public String generate( TreeLogger logger, GeneratorContext context, String typeName )
         throws UnableToCompleteException
     {
@@ -69,137 +75,775 @@ public class PropertyDescriptorsGenerator
 
         String className = simpleClassName + "Introspector";
         String qualifiedBeanClassName = packageName + "." + className;
-        SourceWriter sourceWriter = getSourceWriter( logger, context, packageName, className, type );
-        if ( sourceWriter == null )
+        PrintWriter printWriter = context.tryCreate( logger, packageName, className );
+        if ( printWriter == null )
         {
             return qualifiedBeanClassName;
         }
-        write( logger, sourceWriter, type );
+        JClassType superclass = getIntrospectableSuperclass( logger, type );
+        if ( superclass != null )
+        {
+            // inherited properties are registered by the superclass introspector
+            doGenerate( logger, context, superclass.getQualifiedSourceName() );
+        }
+        List<Property> properties = collectProperties( logger, type, superclass );
+        markComparableProperties( typeOracle, properties );
+
+        // buffer the source, so that its size can be reported
+        StringWriter buffer = new StringWriter();
+        SourceWriter sourceWriter = getSourceWriter( packageName, className, new PrintWriter( buffer ) );
+        write( logger, sourceWriter, type, superclass, properties );
         sourceWriter.commit( logger );
+        String source = buffer.toString();
+        printWriter.print( source );
+        context.commit( logger, printWriter );
+        writeReport( logger, context, type, superclass, qualifiedBeanClassName, properties, source );
         return qualifiedBeanClassName;
     }
 
-    protected SourceWriter getSourceWriter( TreeLogger logger, GeneratorContext context, String packageName,
-                                            String beanClassName, JClassType superType )
+    /**
+     * Write a compile artifact that reports the code generated to support introspection of the type, so that its
+     * impact on the compiled output can be tracked from build to build.
+     */
+    private void writeReport( TreeLogger logger, GeneratorContext context, JClassType type, JClassType superclass,
+                              String introspectorClassName, List<Property> properties, String source )
+        throws UnableToCompleteException, IOException
     {
-        PrintWriter printWriter = context.tryCreate( logger, packageName, beanClassName );
-        if ( printWriter == null )
+        OutputStream out =
+            context.tryCreateResource( logger, "gwtx/introspection/" + type.getQualifiedSourceName() + ".properties" );
+        if ( out == null )
         {
-            return null;
+            return;
         }
+        int readable = 0;
+        int writable = 0;
+        for ( Property property : properties )
+        {
+            readable += property.getter != null ? 1 : 0;
+            writable += property.setter != null ? 1 : 0;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append( "type=" ).append( type.getQualifiedSourceName() ).append( '\n' );
+        report.append( "superclass=" ).append( superclass != null ? superclass.getQualifiedSourceName() : "" );
+        report.append( '\n' );
+        report.append( "introspector=" ).append( introspectorClassName ).append( '\n' );
+        report.append( "properties=" ).append( properties.size() ).append( '\n' );
+        report.append( "readableProperties=" ).append( readable ).append( '\n' );
+        report.append( "writableProperties=" ).append( writable ).append( '\n' );
+        // all accessors are implemented by the generated introspector
+        report.append( "accessorClasses=1\n" );
+        report.append( "sourceSize=" ).append( source.length() ).append( '\n' );
+        out.write( report.toString().getBytes( "UTF-8" ) );
+        context.commitResource( logger, out );
+    }
+
+    protected SourceWriter getSourceWriter( String packageName, String beanClassName, PrintWriter printWriter )
+    {
         ClassSourceFileComposerFactory composerFactory =
             new ClassSourceFileComposerFactory( packageName, beanClassName );
 
-        composerFactory.addImport( PropertyDescriptor.class.getName() );
-        composerFactory.addImport( Method.class.getName() );
         // Do not use GwtBeanInfo.class as the BeanInfo interface is NOT fully implemented
+        composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.GwtBeanAccessor" );
         composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.GwtBeanInfo" );
+        composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.GwtBeanInfoFactory" );
         composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.GwtIntrospector" );
+        composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.GwtPropertyDescriptor" );
+        composerFactory.addImport( "com.googlecode.gwtx.java.introspection.client.GwtPropertyMethod" );
+        composerFactory.addImport( "java.util.Map" );
+        composerFactory.setSuperclass( "GwtBeanAccessor" );
+        composerFactory.addImplementedInterface( "GwtBeanInfoFactory" );
+
+        return composerFactory.createSourceWriter( printWriter );
+    }
 
-        return composerFactory.createSourceWriter( context, printWriter );
+    /**
+     * @param type
+     * @param superclass the introspection-enabled superclass, or <code>null</code>
+     * @return the properties to be generated for the type, with their accessors
+     */
+    private List<Property> collectProperties( TreeLogger logger, JClassType type, JClassType superclass )
+    {
+        List<Property> properties = new ArrayList<Property>( lookupJavaBeanPropertyAccessors( logger, type ) );
+        if ( superclass != null )
+        {
+            // a property redeclared by the type may still use an inherited getter or setter
+            Map<String, Property> inherited = lookupInheritedProperties( logger, superclass );
+            for ( Property property : properties )
+            {
+                Property parent = inherited.get( property.name );
+                if ( parent == null || !parent.propertyType.equals( property.propertyType ) )
+                {
+                    // an inherited accessor of another type doesn't belong to the property
+                    continue;
+                }
+                if ( property.getter == null )
+                {
+                    property.getter = parent.getter;
+                }
+                if ( property.setter == null )
+                {
+                    property.setter = parent.setter;
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Flag the properties which values are <code>Comparable</code> objects, so that the generated accessor can compare
+     * them. Primitive properties are always comparable.
+     */
+    private void markComparableProperties( TypeOracle typeOracle, List<Property> properties )
+        throws NotFoundException
+    {
+        JClassType comparable = typeOracle.getType( Comparable.class.getName() );
+        for ( Property property : properties )
+        {
+            if ( property.getter != null )
+            {
+                JClassType valueType = property.getter.getReturnType().isClassOrInterface();
+                property.comparable = valueType != null && valueType.isAssignableTo( comparable );
+            }
+        }
     }
 
     /**
      * @param logger
      * @param w
-     * @param typeOracle
+     * @param type
+     * @param superclass the introspection-enabled superclass, or <code>null</code>
+     * @param properties
      */
-    private void write( TreeLogger logger, SourceWriter w, JClassType type )
+    private void write( TreeLogger logger, SourceWriter w, JClassType type, JClassType superclass,
+                        List<Property> properties )
     {
-        Collection<Property> properties = lookupJavaBeanPropertyAccessors( logger, type );
-
-        w.println( "// automatically register BeanInfos for bean properties" );
+        String className = type.getSimpleSourceName() + "Introspector";
+        w.println( "public static final " + className + " INSTANCE = new " + className + "();" );
+        if ( superclass != null )
+        {
+            w.println();
+            w.println( "// the superclass introspector registers the inherited properties" );
+            w.println( "static final " + getIntrospectorName( superclass ) + " PARENT = "
+                + getIntrospectorName( superclass ) + ".INSTANCE;" );
+        }
+        w.println();
+        w.println( "// automatically register a BeanInfo factory for the bean" );
         w.println( "static {" );
         w.indent();
-        w.println( "GwtBeanInfo beanInfo = new GwtBeanInfo();");
-        for ( Property property : properties )
+        w.println( "GwtIntrospector.setBeanInfoFactory( " + type.getName() + ".class, INSTANCE );" );
+        w.outdent();
+        w.println( "}" );
+        w.println();
+        w.println( "public GwtBeanInfo createBeanInfo()" );
+        w.println( "{" );
+        w.indent();
+        if ( superclass != null )
+        {
+            w.println( "GwtBeanInfo beanInfo = new GwtBeanInfo( this, " + superclass.getQualifiedSourceName()
+                + ".class );" );
+        }
+        else
         {
+            w.println( "GwtBeanInfo beanInfo = new GwtBeanInfo( this );" );
+        }
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
             w.println("try {");
             w.indent();
             w.print( "beanInfo.addPropertyDescriptor( " );
-            writePropertyDescriptor( w, type, property.name, property.propertyType, property.getter, property.setter );
+            writePropertyDescriptor( w, property, i );
             w.println( " );" );
             w.outdent();
             w.println("} catch (Exception e) {}");
         }
-        w.println( "GwtIntrospector.setBeanInfo( " + type.getName() + ".class, beanInfo );" );
+        w.println( "return beanInfo;" );
         w.outdent();
         w.println( "}" );
+        w.println();
+        if ( type.isDefaultInstantiable() && !type.isAbstract() )
+        {
+            w.println( "public Object newInstance()" );
+            w.println( "{" );
+            w.indentln( "return new " + type.getQualifiedSourceName() + "();" );
+            w.println( "}" );
+            w.println();
+        }
+        writeGetter( w, type, properties );
+        w.println();
+        writeSetter( w, type, properties );
+        writePrimitiveGetter( w, type, properties, "int", "getInt",
+                              JPrimitiveType.INT, JPrimitiveType.SHORT, JPrimitiveType.BYTE, JPrimitiveType.CHAR );
+        writePrimitiveGetter( w, type, properties, "long", "getLong", JPrimitiveType.LONG );
+        writePrimitiveGetter( w, type, properties, "double", "getDouble", JPrimitiveType.DOUBLE, JPrimitiveType.FLOAT );
+        writePrimitiveGetter( w, type, properties, "boolean", "getBoolean", JPrimitiveType.BOOLEAN );
+        writePrimitiveSetter( w, type, properties, "int", "setInt",
+                              JPrimitiveType.INT, JPrimitiveType.SHORT, JPrimitiveType.BYTE, JPrimitiveType.CHAR );
+        writePrimitiveSetter( w, type, properties, "long", "setLong", JPrimitiveType.LONG );
+        writePrimitiveSetter( w, type, properties, "double", "setDouble", JPrimitiveType.DOUBLE, JPrimitiveType.FLOAT );
+        writePrimitiveSetter( w, type, properties, "boolean", "setBoolean", JPrimitiveType.BOOLEAN );
+        w.println();
+        writeCopy( w, type, superclass, properties );
+        w.println();
+        writeCompare( w, type, properties );
+        w.println();
+        writeDiff( w, type, superclass, properties );
+        w.println();
+        writeMapConverters( w, type, superclass, properties );
     }
 
     /**
      * @param sw
-     * @param type
-     * @param propertyName
-     * @param getter
-     * @param setter
+     * @param property
+     * @param index the property index in the generated accessor
      */
-    private void writePropertyDescriptor( SourceWriter sw, JClassType type, String propertyName, String propertyType,
-                                          JMethod getter, JMethod setter )
+    private void writePropertyDescriptor( SourceWriter sw, Property property, int index )
     {
-        sw.print( "new PropertyDescriptor( \"" + propertyName + "\", " +  propertyType + ".class, " );
-        if ( getter != null )
+        sw.print( "new GwtPropertyDescriptor( \"" + property.name + "\", " +  property.propertyType + ".class, this, "
+            + index + ", " );
+        sw.print( property.getter != null ? "new GwtPropertyMethod( this, " + index + ", false ), " : "null, " );
+        sw.print( property.setter != null ? "new GwtPropertyMethod( this, " + index + ", true ) )" : "null )" );
+    }
+
+    /**
+     * Write the <code>get</code> method, that switch to the bean getter according to the property index
+     */
+    private void writeGetter( SourceWriter sw, JClassType type, List<Property> properties )
+    {
+        sw.println( "public Object get( Object bean, int index )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "switch ( index )" );
+        sw.println( "{" );
+        sw.indent();
+        for ( int i = 0; i < properties.size(); i++ )
         {
-            sw.println( "new Method() " );
-            sw.println( "{" );
-            sw.indent();
-            sw.println( "public Object invoke( Object bean, Object... args )" );
-            sw.println( "{" );
+            Property property = properties.get( i );
+            if ( property.getter != null )
+            {
+                sw.println( "case " + i + ":" );
+                sw.indentln( "return ( (" + type.getName() + ") bean)." + property.getter.getName() + "();" );
+            }
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println( "throw new IllegalArgumentException( \"No readable property #\" + index + \" in "
+            + type.getName() + "\" );" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write the <code>set</code> method, that switch to the bean setter according to the property index
+     */
+    private void writeSetter( SourceWriter sw, JClassType type, List<Property> properties )
+    {
+        sw.println( "public void set( Object bean, int index, Object value )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "switch ( index )" );
+        sw.println( "{" );
+        sw.indent();
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            if ( property.setter != null )
+            {
+                JType argType = property.setter.getParameters()[0].getType().getErasedType();
+                String argTypeName ;
+                if (argType.isPrimitive() != null)
+                {
+                    argTypeName = argType.isPrimitive().getQualifiedBoxedSourceName();
+                }
+                else
+                {
+                    argTypeName = argType.getQualifiedSourceName();
+                }
+                sw.println( "case " + i + ":" );
+                sw.indent();
+                sw.println( "( (" + type.getName() + ") bean)." + property.setter.getName() + "( (" + argTypeName
+                    + ") value );" );
+                sw.println( "return;" );
+                sw.outdent();
+            }
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println( "throw new IllegalArgumentException( \"No writable property #\" + index + \" in "
+            + type.getName() + "\" );" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write a primitive getter, that calls the bean getters of the matching primitive types without boxing. Other
+     * properties fall back to the boxing implementation of the super class.
+     */
+    private void writePrimitiveGetter( SourceWriter sw, JClassType type, List<Property> properties,
+                                       String primitive, String methodName, JPrimitiveType... kinds )
+    {
+        List<Integer> indexes = new ArrayList<Integer>();
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            if ( property.getter != null && isPrimitive( property.getter.getReturnType(), kinds ) )
+            {
+                indexes.add( i );
+            }
+        }
+        if ( indexes.isEmpty() )
+        {
+            return;
+        }
+        sw.println();
+        sw.println( "public " + primitive + " " + methodName + "( Object bean, int index )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "switch ( index )" );
+        sw.println( "{" );
+        sw.indent();
+        for ( int i : indexes )
+        {
+            sw.println( "case " + i + ":" );
+            sw.indentln( "return ( (" + type.getName() + ") bean)." + properties.get( i ).getter.getName() + "();" );
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println( "return super." + methodName + "( bean, index );" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write a primitive setter, that calls the bean setters of the matching primitive types without boxing. Other
+     * properties fall back to the boxing implementation of the super class.
+     */
+    private void writePrimitiveSetter( SourceWriter sw, JClassType type, List<Property> properties,
+                                       String primitive, String methodName, JPrimitiveType... kinds )
+    {
+        List<Integer> indexes = new ArrayList<Integer>();
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            if ( property.setter != null && isPrimitive( property.setter.getParameters()[0].getType(), kinds ) )
+            {
+                indexes.add( i );
+            }
+        }
+        if ( indexes.isEmpty() )
+        {
+            return;
+        }
+        sw.println();
+        sw.println( "public void " + methodName + "( Object bean, int index, " + primitive + " value )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "switch ( index )" );
+        sw.println( "{" );
+        sw.indent();
+        for ( int i : indexes )
+        {
+            JMethod setter = properties.get( i ).setter;
+            String argType = setter.getParameters()[0].getType().getQualifiedSourceName();
+            String cast = argType.equals( primitive ) ? "" : "(" + argType + ") ";
+            sw.println( "case " + i + ":" );
             sw.indent();
-            sw.println( "return ( (" + type.getName() + ") bean)." + getter.getName() + "();" );
-            sw.outdent();
-            sw.println( "}" );
+            sw.println( "( (" + type.getName() + ") bean)." + setter.getName() + "( " + cast + "value );" );
+            sw.println( "return;" );
             sw.outdent();
-            sw.print( "}, " );
         }
-        else
+        sw.outdent();
+        sw.println( "}" );
+        sw.println( "super." + methodName + "( bean, index, value );" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write the <code>copy</code> methods, that copy readable and writable properties from a bean to another one with
+     * straight getter to setter calls
+     */
+    private void writeCopy( SourceWriter sw, JClassType type, JClassType superclass, List<Property> properties )
+    {
+        String beanType = type.getName();
+        sw.println( "public void copy( Object src, Object dst )" );
+        sw.println( "{" );
+        sw.indent();
+        if ( superclass != null )
         {
-            sw.print( "null, " );
+            sw.println( "PARENT.copy( src, dst );" );
         }
-        if ( setter != null )
+        sw.println( beanType + " s = (" + beanType + ") src;" );
+        sw.println( beanType + " d = (" + beanType + ") dst;" );
+        for ( Property property : properties )
         {
-            sw.println( "new Method() " );
-            sw.println( "{" );
-            sw.indent();
-            sw.println( "public Object invoke( Object bean, Object... args )" );
-            sw.println( "{" );
-            sw.indent();
-            JType argType = setter.getParameters()[0].getType().getErasedType();
-            String argTypeName ;
-            if (argType.isPrimitive() != null)
+            if ( property.getter != null && property.setter != null )
             {
-                argTypeName = argType.isPrimitive().getQualifiedBoxedSourceName();
+                sw.println( "d." + property.setter.getName() + "( s." + property.getter.getName() + "() );" );
             }
-            else
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public void copy( Object src, Object dst, int index )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "switch ( index )" );
+        sw.println( "{" );
+        sw.indent();
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            if ( property.getter != null && property.setter != null )
+            {
+                sw.println( "case " + i + ":" );
+                sw.indent();
+                sw.println( "( (" + beanType + ") dst)." + property.setter.getName() + "( ( (" + beanType + ") src)."
+                    + property.getter.getName() + "() );" );
+                sw.println( "return;" );
+                sw.outdent();
+            }
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println( "throw new IllegalArgumentException( \"No readable and writable property #\" + index + \" in "
+            + beanType + "\" );" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write the <code>compare</code> method, that compares readable primitive properties without boxing, and
+     * <code>Comparable</code> ones with null values first
+     */
+    private void writeCompare( SourceWriter sw, JClassType type, List<Property> properties )
+    {
+        String beanType = type.getName();
+        sw.println( "public int compare( Object a, Object b, int index )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "switch ( index )" );
+        sw.println( "{" );
+        sw.indent();
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            if ( isComparable( property ) )
             {
-                argTypeName = argType.getQualifiedSourceName();
+                String getter = property.getter.getName();
+                sw.println( "case " + i + ":" );
+                sw.indentln( "return compareValues( ( (" + beanType + ") a)." + getter + "(), ( (" + beanType
+                    + ") b)." + getter + "() );" );
             }
-            sw.println( "( (" + type.getName() + ") bean)." + setter.getName() + "( (" + argTypeName + ") args[0] );" );
-            sw.println( "return null;" );
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println( "throw new IllegalArgumentException( \"No comparable property #\" + index + \" in "
+            + beanType + "\" );" );
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public boolean isComparable( int index )" );
+        sw.println( "{" );
+        sw.indent();
+        boolean comparable = false;
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            if ( isComparable( properties.get( i ) ) )
+            {
+                if ( !comparable )
+                {
+                    sw.println( "switch ( index )" );
+                    sw.println( "{" );
+                    sw.indent();
+                    comparable = true;
+                }
+                sw.println( "case " + i + ":" );
+            }
+        }
+        if ( comparable )
+        {
+            sw.indentln( "return true;" );
             sw.outdent();
             sw.println( "}" );
-            sw.outdent();
-            sw.print( "} )" );
         }
-        else
+        sw.println( "return false;" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * @return <code>true</code> if the property is readable, and primitive or <code>Comparable</code>
+     */
+    private static boolean isComparable( Property property )
+    {
+        return property.getter != null
+            && ( property.comparable || property.getter.getReturnType().isPrimitive() != null );
+    }
+
+    /**
+     * Write the <code>diff</code> and <code>hash</code> methods, that compare or hash all readable properties with
+     * straight getter calls. Primitive properties are not boxed.
+     */
+    private void writeDiff( SourceWriter sw, JClassType type, JClassType superclass, List<Property> properties )
+    {
+        String beanType = type.getName();
+        sw.println( "public void diff( Object a, Object b, int[] positions, int[] changes )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( beanType + " x = (" + beanType + ") a;" );
+        sw.println( beanType + " y = (" + beanType + ") b;" );
+        for ( int i = 0; i < properties.size(); i++ )
+        {
+            Property property = properties.get( i );
+            if ( property.getter != null )
+            {
+                String getter = property.getter.getName();
+                sw.println( "if ( !equalValues( x." + getter + "(), y." + getter + "() ) )" );
+                sw.println( "{" );
+                sw.indentln( "markChanged( changes, positions[" + i + "] );" );
+                sw.println( "}" );
+            }
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public int hash( Object bean )" );
+        sw.println( "{" );
+        sw.indent();
+        sw.println( "int hash = " + ( superclass != null ? "PARENT.hash( bean );" : "0;" ) );
+        sw.println( beanType + " x = (" + beanType + ") bean;" );
+        for ( Property property : properties )
+        {
+            if ( property.getter != null )
+            {
+                sw.println( "hash = 31 * hash + hashValue( x." + property.getter.getName() + "() );" );
+            }
+        }
+        sw.println( "return hash;" );
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * Write the <code>toMap</code> and <code>fromMap</code> methods, that convert the bean properties to map entries
+     * and back
+     */
+    private void writeMapConverters( SourceWriter sw, JClassType type, JClassType superclass,
+                                     List<Property> properties )
+    {
+        String beanType = type.getName();
+        sw.println( "public void toMap( Object bean, Map<String, Object> map )" );
+        sw.println( "{" );
+        sw.indent();
+        if ( superclass != null )
+        {
+            sw.println( "PARENT.toMap( bean, map );" );
+        }
+        sw.println( beanType + " b = (" + beanType + ") bean;" );
+        for ( Property property : properties )
+        {
+            if ( property.getter != null )
+            {
+                sw.println( "map.put( \"" + property.name + "\", b." + property.getter.getName() + "() );" );
+            }
+        }
+        sw.outdent();
+        sw.println( "}" );
+        sw.println();
+        sw.println( "public void fromMap( Map<String, Object> map, Object bean )" );
+        sw.println( "{" );
+        sw.indent();
+        if ( superclass != null )
+        {
+            sw.println( "PARENT.fromMap( map, bean );" );
+        }
+        sw.println( beanType + " b = (" + beanType + ") bean;" );
+        sw.println( "Object value;" );
+        for ( Property property : properties )
+        {
+            if ( property.setter == null )
+            {
+                continue;
+            }
+            JType argType = property.setter.getParameters()[0].getType().getErasedType();
+            JPrimitiveType primitive = argType.isPrimitive();
+            JPrimitiveType wrapped = getWrappedNumber( argType );
+            if ( primitive != null )
+            {
+                sw.println( "value = map.get( \"" + property.name + "\" );" );
+                sw.println( "if ( value != null )" );
+                sw.println( "{" );
+                sw.indentln( "b." + property.setter.getName() + "( " + unbox( primitive, "value" ) + " );" );
+                sw.println( "}" );
+            }
+            else if ( wrapped != null )
+            {
+                // convert other Number implementations, as done for primitive properties
+                String boxed = argType.getQualifiedSourceName();
+                sw.println( "if ( map.containsKey( \"" + property.name + "\" ) )" );
+                sw.println( "{" );
+                sw.indent();
+                sw.println( "value = map.get( \"" + property.name + "\" );" );
+                sw.println( "if ( value != null && !( value instanceof " + boxed + " ) )" );
+                sw.println( "{" );
+                sw.indentln( "value = new " + boxed + "( " + unbox( wrapped, "value" ) + " );" );
+                sw.println( "}" );
+                sw.println( "b." + property.setter.getName() + "( (" + boxed + ") value );" );
+                sw.outdent();
+                sw.println( "}" );
+            }
+            else
+            {
+                sw.println( "if ( map.containsKey( \"" + property.name + "\" ) )" );
+                sw.println( "{" );
+                sw.indentln( "b." + property.setter.getName() + "( (" + argType.getQualifiedSourceName()
+                    + ") map.get( \"" + property.name + "\" ) );" );
+                sw.println( "}" );
+            }
+        }
+        sw.outdent();
+        sw.println( "}" );
+    }
+
+    /**
+     * @return java expression to convert a boxed value to the primitive type. Numbers are converted to the primitive
+     * type, as a map may hold a different Number implementation
+     */
+    private static String unbox( JPrimitiveType primitive, String value )
+    {
+        if ( primitive == JPrimitiveType.BOOLEAN )
+        {
+            return "( (Boolean) " + value + " ).booleanValue()";
+        }
+        if ( primitive == JPrimitiveType.CHAR )
+        {
+            return "( (Character) " + value + " ).charValue()";
+        }
+        if ( primitive == JPrimitiveType.LONG )
+        {
+            return "( (Number) " + value + " ).longValue()";
+        }
+        if ( primitive == JPrimitiveType.DOUBLE )
+        {
+            return "( (Number) " + value + " ).doubleValue()";
+        }
+        if ( primitive == JPrimitiveType.FLOAT )
+        {
+            return "( (Number) " + value + " ).floatValue()";
+        }
+        if ( primitive == JPrimitiveType.INT )
+        {
+            return "( (Number) " + value + " ).intValue()";
+        }
+        return "(" + primitive.getQualifiedSourceName() + ") ( (Number) " + value + " ).intValue()";
+    }
+
+    /**
+     * @return the numeric primitive type wrapped by the type, or <code>null</code> if the type is not a Number
+     * wrapper
+     */
+    private static JPrimitiveType getWrappedNumber( JType type )
+    {
+        JPrimitiveType[] numbers = { JPrimitiveType.BYTE, JPrimitiveType.SHORT, JPrimitiveType.INT,
+            JPrimitiveType.LONG, JPrimitiveType.FLOAT, JPrimitiveType.DOUBLE };
+        for ( JPrimitiveType number : numbers )
+        {
+            if ( number.getQualifiedBoxedSourceName().equals( type.getQualifiedSourceName() ) )
+            {
+                return number;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPrimitive( JType type, JPrimitiveType... kinds )
+    {
+        JPrimitiveType primitive = type.isPrimitive();
+        if ( primitive != null )
         {
-            sw.print( "null )" );
+            for ( JPrimitiveType kind : kinds )
+            {
+                if ( primitive == kind )
+                {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
     /**
-     * Lookup any public method in the type to match JavaBeans accessor convention
+     * @return the qualified name of the introspector generated for the type
+     */
+    private static String getIntrospectorName( JClassType type )
+    {
+        return type.getPackage().getName() + "." + type.getSimpleSourceName() + "Introspector";
+    }
+
+    /**
+     * Lookup the superclass to inherit javabean properties from. The walk stops at the first superclass that is not
+     * user source, or that declares no javabean property, so that an introspector is never generated for a JRE or
+     * GWT class.
      * @param type
-     * @return Collection of javabean properties
+     * @return the superclass to inherit properties from, or <code>null</code>
      */
-    protected Collection<Property> lookupJavaBeanPropertyAccessors( TreeLogger logger, JClassType type )
+    protected JClassType getIntrospectableSuperclass( TreeLogger logger, JClassType type )
+    {
+        JClassType superclass = type.getSuperclass();
+        if ( superclass == null || isLibraryType( superclass )
+            || lookupJavaBeanPropertyAccessors( logger, superclass ).isEmpty() )
+        {
+            return null;
+        }
+        return superclass;
+    }
+
+    /**
+     * @return <code>true</code> if the type belongs to the JRE or to the GWT SDK rather than to user source
+     */
+    private static boolean isLibraryType( JClassType type )
+    {
+        String name = type.getQualifiedSourceName();
+        return name.startsWith( "java." ) || name.startsWith( "javax." ) || name.startsWith( "com.google.gwt." );
+    }
+
+    /**
+     * @param type
+     * @return javabean properties declared by the type and its superclasses, by name
+     */
+    private Map<String, Property> lookupInheritedProperties( TreeLogger logger, JClassType type )
     {
         Map<String, Property> properties = new HashMap<String, Property>();
+        for ( JClassType superclass = type; superclass != null;
+              superclass = getIntrospectableSuperclass( logger, superclass ) )
+        {
+            for ( Property property : lookupJavaBeanPropertyAccessors( logger, superclass ) )
+            {
+                if ( !properties.containsKey( property.name ) )
+                {
+                    properties.put( property.name, property );
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Lookup any public method declared by the type to match JavaBeans accessor convention. Inherited accessors are
+     * handled by the superclass introspector.
+     * @param type
+     * @return Collection of javabean properties, sorted by name so that property indexes are stable from build to
+     * build
+     */
+    protected Collection<Property> lookupJavaBeanPropertyAccessors( TreeLogger logger, JClassType type )
+    {
+        Map<String, Property> properties = new TreeMap<String, Property>();
 
         JMethod[] methods = type.getMethods();
         for ( JMethod method : methods )
         {
-            if ( ! method.isPublic() || method.isStatic()  )
+            if ( ! method.isPublic() || method.isStatic() || method.getEnclosingType() != type )
             {
                 continue;
             }
@@ -226,7 +870,6 @@ public class PropertyDescriptorsGenerator
                     property = new Property( name );
                     properties.put( name, property );
                 }
-                property.setter = method;
                 if ( property.propertyType == null )
                 {
                     property.propertyType = propertyType;
@@ -234,10 +877,11 @@ public class PropertyDescriptorsGenerator
                 else if ( ! property.propertyType.equals( propertyType ) )
                 {
                     logger.log(Type.WARN, "Property '" + name
-                        + "' has an invalid setter: " + propertyType + " was expected, "
-                        + property.propertyType + " found!");
+                        + "' has an invalid setter: " + property.propertyType + " was expected, "
+                        + propertyType + " found!");
                     continue;
                 }
+                property.setter = method;
             }
             else if ( method.getName().startsWith( "get" ) && method.getParameters().length == 0 )
             {
@@ -250,7 +894,6 @@ public class PropertyDescriptorsGenerator
                     property = new Property( name );
                     properties.put( name, property );
                 }
-                property.getter = method;
                 if ( property.propertyType == null )
                 {
                     property.propertyType = propertyType;
@@ -258,10 +901,11 @@ public class PropertyDescriptorsGenerator
                 else if ( ! property.propertyType.equals( propertyType ) )
                 {
                     logger.log(Type.WARN, "Property '" + name
-                        + "' has an invalid getter: " + propertyType + " was expected, "
-                        + property.propertyType + " found!");
+                        + "' has an invalid getter: " + property.propertyType + " was expected, "
+                        + propertyType + " found!");
                     continue;
                 }
+                property.getter = method;
             }
             else if ( method.getName().startsWith( "is" ) && method.getParameters().length == 0 )
             {
@@ -274,7 +918,6 @@ public class PropertyDescriptorsGenerator
                     property = new Property( name );
                     properties.put( name, property );
                 }
-                property.getter = method;
                 if ( property.propertyType == null )
                 {
                     property.propertyType = propertyType;
@@ -282,21 +925,60 @@ public class PropertyDescriptorsGenerator
                 else if ( ! property.propertyType.equals( propertyType ) )
                 {
                     logger.log( Type.WARN, "Property '" + name
-                        + "' has an invalid 'is' getter: " + propertyType + " was expected, "
-                        + property.propertyType + " found!");
+                        + "' has an invalid 'is' getter: " + property.propertyType + " was expected, "
+                        + propertyType + " found!");
+                    continue;
+                }
+                property.getter = method;
+            }
+        }
+        return selectProperties( logger, type, properties ).values();
+    }
+
+    /**
+     * Apply the {@link Introspectable} selection of the type to the properties it declares
+     */
+    private Map<String, Property> selectProperties( TreeLogger logger, JClassType type,
+                                                    Map<String, Property> properties )
+    {
+        Introspectable introspectable = type.getAnnotation( Introspectable.class );
+        if ( introspectable == null )
+        {
+            return properties;
+        }
+        Map<String, Property> selected = properties;
+        if ( introspectable.include().length > 0 )
+        {
+            selected = new TreeMap<String, Property>();
+            for ( String name : introspectable.include() )
+            {
+                Property property = properties.get( name );
+                if ( property == null )
+                {
+                    logger.log( Type.WARN, "Included property '" + name + "' is not declared by "
+                        + type.getQualifiedSourceName() );
                     continue;
                 }
+                selected.put( name, property );
             }
         }
-        return properties.values();
+        for ( String name : introspectable.exclude() )
+        {
+            selected.remove( name );
+        }
+        return selected;
     }
 
-    private class Property
+    /**
+     * A javabean property, with its accessors
+     */
+    protected static class Property
     {
         public String name;
         public String propertyType;
         public JMethod getter;
         public JMethod setter;
+        public boolean comparable;
 
         public Property( String name )
         {
@@ -0,0 +1,143 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class BatchingPropertyChangeSupportTest
+    extends TestCase
+{
+    private BatchingPropertyChangeSupport changes;
+
+    private List<PropertyChangeEvent> events;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        changes = new BatchingPropertyChangeSupport( this );
+        events = new ArrayList<PropertyChangeEvent>();
+        changes.addPropertyChangeListener( new PropertyChangeListener()
+        {
+            public void propertyChange( PropertyChangeEvent event )
+            {
+                events.add( event );
+            }
+        } );
+    }
+
+    public void testFiresImmediatelyOutsideBatch()
+    {
+        changes.firePropertyChange( "name", "a", "b" );
+        assertEquals( 1, events.size() );
+    }
+
+    public void testEventsAreMergedByProperty()
+    {
+        changes.beginBatch();
+        changes.firePropertyChange( "name", "a", "b" );
+        changes.firePropertyChange( "age", 1, 2 );
+        changes.firePropertyChange( "name", "b", "c" );
+        assertEquals( 0, events.size() );
+        changes.endBatch();
+
+        assertEquals( 2, events.size() );
+        assertEquals( "name", events.get( 0 ).getPropertyName() );
+        assertEquals( "a", events.get( 0 ).getOldValue() );
+        assertEquals( "c", events.get( 0 ).getNewValue() );
+        assertEquals( "age", events.get( 1 ).getPropertyName() );
+    }
+
+    public void testPropertyChangedBackDoesNotFire()
+    {
+        changes.beginBatch();
+        changes.firePropertyChange( "name", "a", "b" );
+        changes.firePropertyChange( "name", "b", "a" );
+        changes.endBatch();
+
+        assertEquals( 0, events.size() );
+    }
+
+    public void testNestedBatches()
+    {
+        changes.beginBatch();
+        changes.beginBatch();
+        changes.firePropertyChange( "name", "a", "b" );
+        changes.endBatch();
+        assertEquals( 0, events.size() );
+        changes.endBatch();
+        assertEquals( 1, events.size() );
+    }
+
+    public void testIndexedEventsAreNotMerged()
+    {
+        changes.beginBatch();
+        changes.fireIndexedPropertyChange( "items", 0, "a", "b" );
+        changes.fireIndexedPropertyChange( "items", 1, "c", "d" );
+        changes.endBatch();
+
+        assertEquals( 2, events.size() );
+        assertTrue( events.get( 1 ) instanceof IndexedPropertyChangeEvent );
+    }
+
+    public void testListenerFailureIsRethrownAfterDelivery()
+    {
+        changes.addPropertyChangeListener( "name", new PropertyChangeListener()
+        {
+            public void propertyChange( PropertyChangeEvent event )
+            {
+                throw new IllegalStateException( "listener failure" );
+            }
+        } );
+        changes.beginBatch();
+        changes.firePropertyChange( "name", "a", "b" );
+        changes.firePropertyChange( "age", 1, 2 );
+        try
+        {
+            changes.endBatch();
+            fail( "IllegalStateException expected" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( "listener failure", e.getMessage() );
+        }
+        assertEquals( 2, events.size() );
+    }
+
+    public void testEndWithoutBeginFails()
+    {
+        try
+        {
+            changes.endBatch();
+            fail( "IllegalStateException expected" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // expected
+        }
+    }
+}
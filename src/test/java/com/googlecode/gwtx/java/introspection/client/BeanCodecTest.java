@@ -0,0 +1,319 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class BeanCodecTest
+    extends TestCase
+{
+    public void testRoundTrip()
+        throws Exception
+    {
+        Order order = new Order();
+        order.setId( Long.MIN_VALUE );
+        order.setQuantity( Integer.MIN_VALUE );
+        order.setPrice( Double.NaN );
+        order.setPaid( true );
+        order.setLabel( "~a,b\\c" );
+        order.setDate( new Date( 987654321L ) );
+        order.setStatus( Status.SHIPPED );
+        order.setCodes( new long[] { 1, Long.MAX_VALUE } );
+        order.setNames( new String[] { "x", null, "~" } );
+        order.setDiscount( new Integer( -7 ) );
+        order.setCustomer( new Customer() );
+        order.getCustomer().setName( "Jo" );
+
+        String encoded = BeanCodec.encode( Order.class, order );
+        Order copy = BeanCodec.decode( Order.class, encoded, new Order() );
+
+        assertEquals( Long.MIN_VALUE, copy.getId() );
+        assertEquals( Integer.MIN_VALUE, copy.getQuantity() );
+        assertTrue( Double.isNaN( copy.getPrice() ) );
+        assertTrue( copy.isPaid() );
+        assertEquals( "~a,b\\c", copy.getLabel() );
+        assertEquals( order.getDate(), copy.getDate() );
+        assertEquals( Status.SHIPPED, copy.getStatus() );
+        assertTrue( Arrays.equals( order.getCodes(), copy.getCodes() ) );
+        assertTrue( Arrays.equals( order.getNames(), copy.getNames() ) );
+        assertEquals( new Integer( -7 ), copy.getDiscount() );
+        assertEquals( "Jo", copy.getCustomer().getName() );
+    }
+
+    public void testGenericNumbersKeepTheirType()
+        throws Exception
+    {
+        List<Object> values = new ArrayList<Object>();
+        values.add( new Long( Long.MAX_VALUE ) );
+        values.add( new Integer( 3 ) );
+        values.add( new Double( 0.5 ) );
+        values.add( "s" );
+        values.add( null );
+        Order order = new Order();
+        order.setExtra( values );
+
+        Order copy = BeanCodec.decode( Order.class, BeanCodec.encode( Order.class, order ), new Order() );
+
+        assertEquals( values, copy.getExtra() );
+    }
+
+    public void testChanges()
+        throws Exception
+    {
+        Order before = new Order();
+        before.setQuantity( 1 );
+        Order after = new Order();
+        after.setQuantity( 2 );
+        after.setLabel( "changed" );
+
+        BeanDiff diff = GwtIntrospector.diff( Order.class, before, after );
+        String encoded = BeanCodec.encodeChanges( Order.class, after, diff );
+        BeanCodec.applyChanges( Order.class, encoded, before );
+
+        assertEquals( 2, before.getQuantity() );
+        assertEquals( "changed", before.getLabel() );
+    }
+
+    public void testOtherSchemaIsRejected()
+        throws Exception
+    {
+        String encoded = BeanCodec.encode( Customer.class, new Customer() );
+        try
+        {
+            BeanCodec.decode( Order.class, encoded, new Order() );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    public void testSchemaHashIncludesNestedBeans()
+        throws Exception
+    {
+        // hash of the property name and type only
+        int shallow = 31 * "value".hashCode() + Wrapper.Nested.class.getName().hashCode();
+        assertFalse( BeanCodec.getSchemaHash( Wrapper.class ) == shallow );
+    }
+
+    public enum Status
+    {
+        NEW, SHIPPED
+    }
+
+    public static class Customer
+    {
+        private String name;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+    }
+
+    public static class Order
+    {
+        private long id;
+
+        private int quantity;
+
+        private double price;
+
+        private boolean paid;
+
+        private String label;
+
+        private Date date;
+
+        private Status status;
+
+        private long[] codes;
+
+        private String[] names;
+
+        private Integer discount;
+
+        private Customer customer;
+
+        private List<Object> extra;
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public void setId( long id )
+        {
+            this.id = id;
+        }
+
+        public int getQuantity()
+        {
+            return quantity;
+        }
+
+        public void setQuantity( int quantity )
+        {
+            this.quantity = quantity;
+        }
+
+        public double getPrice()
+        {
+            return price;
+        }
+
+        public void setPrice( double price )
+        {
+            this.price = price;
+        }
+
+        public boolean isPaid()
+        {
+            return paid;
+        }
+
+        public void setPaid( boolean paid )
+        {
+            this.paid = paid;
+        }
+
+        public String getLabel()
+        {
+            return label;
+        }
+
+        public void setLabel( String label )
+        {
+            this.label = label;
+        }
+
+        public Date getDate()
+        {
+            return date;
+        }
+
+        public void setDate( Date date )
+        {
+            this.date = date;
+        }
+
+        public Status getStatus()
+        {
+            return status;
+        }
+
+        public void setStatus( Status status )
+        {
+            this.status = status;
+        }
+
+        public long[] getCodes()
+        {
+            return codes;
+        }
+
+        public void setCodes( long[] codes )
+        {
+            this.codes = codes;
+        }
+
+        public String[] getNames()
+        {
+            return names;
+        }
+
+        public void setNames( String[] names )
+        {
+            this.names = names;
+        }
+
+        public Integer getDiscount()
+        {
+            return discount;
+        }
+
+        public void setDiscount( Integer discount )
+        {
+            this.discount = discount;
+        }
+
+        public Customer getCustomer()
+        {
+            return customer;
+        }
+
+        public void setCustomer( Customer customer )
+        {
+            this.customer = customer;
+        }
+
+        public List<Object> getExtra()
+        {
+            return extra;
+        }
+
+        public void setExtra( List<Object> extra )
+        {
+            this.extra = extra;
+        }
+    }
+
+    public static class Wrapper
+    {
+        private Nested value;
+
+        public Nested getValue()
+        {
+            return value;
+        }
+
+        public void setValue( Nested value )
+        {
+            this.value = value;
+        }
+
+        public static class Nested
+        {
+            private int count;
+
+            public int getCount()
+            {
+                return count;
+            }
+
+            public void setCount( int count )
+            {
+                this.count = count;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class BeanComparatorTest
+    extends TestCase
+{
+    public void testMultipleKeys()
+        throws Exception
+    {
+        List<Person> persons = new ArrayList<Person>();
+        persons.add( new Person( "b", 30, 0 ) );
+        persons.add( new Person( "a", 20, 0 ) );
+        persons.add( new Person( "b", 40, 0 ) );
+        persons.add( new Person( null, 10, 0 ) );
+
+        Collections.sort( persons, BeanComparator.builder( Person.class ).ascending( "name" ).descending( "age" )
+            .build() );
+
+        assertEquals( 10, persons.get( 0 ).getAge() );
+        assertEquals( 20, persons.get( 1 ).getAge() );
+        assertEquals( 40, persons.get( 2 ).getAge() );
+        assertEquals( 30, persons.get( 3 ).getAge() );
+    }
+
+    public void testNaNSortsLast()
+        throws Exception
+    {
+        List<Person> persons = new ArrayList<Person>();
+        persons.add( new Person( "a", 0, Double.NaN ) );
+        persons.add( new Person( "b", 0, 2 ) );
+        persons.add( new Person( "c", 0, -1 ) );
+
+        Collections.sort( persons, BeanComparator.builder( Person.class ).ascending( "score" ).build() );
+
+        assertEquals( "c", persons.get( 0 ).getName() );
+        assertEquals( "b", persons.get( 1 ).getName() );
+        assertEquals( "a", persons.get( 2 ).getName() );
+    }
+
+    public void testNotComparablePropertyIsRejected()
+        throws Exception
+    {
+        try
+        {
+            BeanComparator.builder( Person.class ).ascending( "tags" );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    public void testUnknownPropertyIsRejected()
+    {
+        try
+        {
+            BeanComparator.builder( Person.class ).ascending( "unknown" );
+            fail( "IntrospectionException expected" );
+        }
+        catch ( IntrospectionException e )
+        {
+            // expected
+        }
+    }
+
+    public static class Person
+    {
+        private String name;
+
+        private int age;
+
+        private double score;
+
+        private List<String> tags;
+
+        public Person()
+        {
+            super();
+        }
+
+        public Person( String name, int age, double score )
+        {
+            super();
+            this.name = name;
+            this.age = age;
+            this.score = score;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        public int getAge()
+        {
+            return age;
+        }
+
+        public void setAge( int age )
+        {
+            this.age = age;
+        }
+
+        public double getScore()
+        {
+            return score;
+        }
+
+        public void setScore( double score )
+        {
+            this.score = score;
+        }
+
+        public List<String> getTags()
+        {
+            return tags;
+        }
+
+        public void setTags( List<String> tags )
+        {
+            this.tags = tags;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class BeanJsonTest
+    extends TestCase
+{
+    public void testRoundTrip()
+        throws Exception
+    {
+        Person person = new Person();
+        person.setName( "Jo \"the\" \\ \u00e9\n" );
+        person.setAge( 42 );
+        person.setId( Long.MAX_VALUE );
+        person.setScore( 1.25 );
+        person.setActive( true );
+        person.setBirth( new Date( 123456789L ) );
+        person.setColor( Color.GREEN );
+        person.setAliases( new String[] { "a", null } );
+        person.setCodes( new int[] { 1, -2 } );
+        person.setTags( new ArrayList<Object>( Arrays.asList( new Object[] { "x", Boolean.TRUE } ) ) );
+        person.setRoles( new HashSet<Object>( Arrays.asList( new Object[] { "admin" } ) ) );
+        person.setAddress( new Address() );
+        person.getAddress().setCity( "Paris" );
+
+        String json = BeanJson.toJson( Person.class, person );
+        Person copy = BeanJson.fromJson( Person.class, json );
+
+        assertEquals( person.getName(), copy.getName() );
+        assertEquals( 42, copy.getAge() );
+        assertEquals( Long.MAX_VALUE, copy.getId() );
+        assertEquals( 1.25, copy.getScore(), 0 );
+        assertTrue( copy.isActive() );
+        assertEquals( person.getBirth(), copy.getBirth() );
+        assertEquals( Color.GREEN, copy.getColor() );
+        assertTrue( Arrays.equals( person.getAliases(), copy.getAliases() ) );
+        assertTrue( Arrays.equals( person.getCodes(), copy.getCodes() ) );
+        assertEquals( person.getTags(), copy.getTags() );
+        assertEquals( person.getRoles(), copy.getRoles() );
+        assertEquals( "Paris", copy.getAddress().getCity() );
+    }
+
+    public void testNullValues()
+        throws Exception
+    {
+        String json = BeanJson.toJson( Person.class, new Person() );
+        Person copy = BeanJson.fromJson( Person.class, json );
+        assertNull( copy.getName() );
+        assertNull( copy.getColor() );
+        assertNull( copy.getAddress() );
+    }
+
+    public void testUnknownPropertiesAreSkipped()
+        throws Exception
+    {
+        Address address = BeanJson.fromJson( Address.class, "{\"zip\":[1,{\"a\":null}],\"city\":\"Lyon\"}" );
+        assertEquals( "Lyon", address.getCity() );
+    }
+
+    public void testList()
+        throws Exception
+    {
+        List<Address> addresses = new ArrayList<Address>();
+        addresses.add( new Address() );
+        addresses.add( null );
+        addresses.get( 0 ).setCity( "Nice" );
+
+        StringBuilder out = new StringBuilder();
+        BeanJson.writeList( Address.class, addresses, out );
+        List<Address> copy = BeanJson.fromJsonList( Address.class, out.toString() );
+
+        assertEquals( 2, copy.size() );
+        assertEquals( "Nice", copy.get( 0 ).getCity() );
+        assertNull( copy.get( 1 ) );
+    }
+
+    public void testUnsupportedTypeFails()
+        throws Exception
+    {
+        try
+        {
+            BeanJson.fromJson( Unsupported.class, "{\"locale\":\"fr\"}" );
+            fail( "IntrospectionException expected" );
+        }
+        catch ( IntrospectionException e )
+        {
+            // expected
+        }
+    }
+
+    public void testInvalidJsonFails()
+        throws Exception
+    {
+        try
+        {
+            BeanJson.fromJson( Address.class, "{\"city\":" );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    public enum Color
+    {
+        RED, GREEN
+    }
+
+    public static class Person
+    {
+        private String name;
+
+        private int age;
+
+        private long id;
+
+        private double score;
+
+        private boolean active;
+
+        private Date birth;
+
+        private Color color;
+
+        private String[] aliases;
+
+        private int[] codes;
+
+        private List<Object> tags;
+
+        private Set<Object> roles;
+
+        private Address address;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        public int getAge()
+        {
+            return age;
+        }
+
+        public void setAge( int age )
+        {
+            this.age = age;
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public void setId( long id )
+        {
+            this.id = id;
+        }
+
+        public double getScore()
+        {
+            return score;
+        }
+
+        public void setScore( double score )
+        {
+            this.score = score;
+        }
+
+        public boolean isActive()
+        {
+            return active;
+        }
+
+        public void setActive( boolean active )
+        {
+            this.active = active;
+        }
+
+        public Date getBirth()
+        {
+            return birth;
+        }
+
+        public void setBirth( Date birth )
+        {
+            this.birth = birth;
+        }
+
+        public Color getColor()
+        {
+            return color;
+        }
+
+        public void setColor( Color color )
+        {
+            this.color = color;
+        }
+
+        public String[] getAliases()
+        {
+            return aliases;
+        }
+
+        public void setAliases( String[] aliases )
+        {
+            this.aliases = aliases;
+        }
+
+        public int[] getCodes()
+        {
+            return codes;
+        }
+
+        public void setCodes( int[] codes )
+        {
+            this.codes = codes;
+        }
+
+        public List<Object> getTags()
+        {
+            return tags;
+        }
+
+        public void setTags( List<Object> tags )
+        {
+            this.tags = tags;
+        }
+
+        public Set<Object> getRoles()
+        {
+            return roles;
+        }
+
+        public void setRoles( Set<Object> roles )
+        {
+            this.roles = roles;
+        }
+
+        public Address getAddress()
+        {
+            return address;
+        }
+
+        public void setAddress( Address address )
+        {
+            this.address = address;
+        }
+    }
+
+    public static class Address
+    {
+        private String city;
+
+        public String getCity()
+        {
+            return city;
+        }
+
+        public void setCity( String city )
+        {
+            this.city = city;
+        }
+    }
+
+    public static class Unsupported
+    {
+        private Locale locale;
+
+        public Locale getLocale()
+        {
+            return locale;
+        }
+
+        public void setLocale( Locale locale )
+        {
+            this.locale = locale;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class ColumnStoreTest
+    extends TestCase
+{
+    public void testColumnsUsePrimitiveArrays()
+        throws Exception
+    {
+        ColumnStore<Item> store = new ColumnStore<Item>( Item.class );
+        store.add( new Item( "a", 1, 10L, 1.5, true ) );
+        store.add( new Item( "b", 2, 20L, 2.5, false ) );
+
+        assertEquals( 2, store.size() );
+        assertEquals( 5, store.getColumnCount() );
+        assertEquals( 2, store.getIntColumn( "count" )[1] );
+        assertEquals( 10L, store.getLongColumn( "total" )[0] );
+        assertEquals( 2.5, store.getDoubleColumn( "price" )[1], 0 );
+        assertTrue( store.getBooleanColumn( "available" )[0] );
+        assertEquals( "b", store.getObjectColumn( "name" )[1] );
+        assertEquals( -1, store.getColumnIndex( "unknown" ) );
+    }
+
+    public void testAddAllGrowsColumns()
+        throws Exception
+    {
+        ColumnStore<Item> store = new ColumnStore<Item>( Item.class, 1 );
+        List<Item> items = new ArrayList<Item>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            items.add( new Item( "item" + i, i, i, i, i % 2 == 0 ) );
+        }
+        store.addAll( items );
+
+        assertEquals( 100, store.size() );
+        assertEquals( 99, store.getIntColumn( "count" )[99] );
+        assertEquals( "item42", store.getRow( 42 ).get( "name" ) );
+    }
+
+    public void testRowView()
+        throws Exception
+    {
+        ColumnStore<Item> store = new ColumnStore<Item>( Item.class );
+        store.add( new Item( "a", 1, 10L, 1.5, true ) );
+
+        ColumnStore<Item>.Row row = store.getRow( 0 );
+        assertEquals( new Integer( 1 ), row.get( "count" ) );
+        row.set( "count", new Integer( 5 ) );
+        assertEquals( 5, row.getInt( "count" ) );
+        assertEquals( 10L, row.getLong( "total" ) );
+
+        Item item = row.copyTo( new Item() );
+        assertEquals( "a", item.getName() );
+        assertEquals( 5, item.getCount() );
+        assertEquals( 1.5, item.getPrice(), 0 );
+    }
+
+    public void testClear()
+        throws Exception
+    {
+        ColumnStore<Item> store = new ColumnStore<Item>( Item.class );
+        store.add( new Item( "a", 1, 10L, 1.5, true ) );
+        store.clear();
+
+        assertEquals( 0, store.size() );
+        try
+        {
+            store.getRow( 0 );
+            fail( "IndexOutOfBoundsException expected" );
+        }
+        catch ( IndexOutOfBoundsException e )
+        {
+            // expected
+        }
+    }
+
+    public void testWrongColumnTypeIsRejected()
+        throws Exception
+    {
+        ColumnStore<Item> store = new ColumnStore<Item>( Item.class );
+        try
+        {
+            store.getIntColumn( "name" );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    public static class Item
+    {
+        private String name;
+
+        private int count;
+
+        private long total;
+
+        private double price;
+
+        private boolean available;
+
+        public Item()
+        {
+            super();
+        }
+
+        public Item( String name, int count, long total, double price, boolean available )
+        {
+            super();
+            this.name = name;
+            this.count = count;
+            this.total = total;
+            this.price = price;
+            this.available = available;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        public int getCount()
+        {
+            return count;
+        }
+
+        public void setCount( int count )
+        {
+            this.count = count;
+        }
+
+        public long getTotal()
+        {
+            return total;
+        }
+
+        public void setTotal( long total )
+        {
+            this.total = total;
+        }
+
+        public double getPrice()
+        {
+            return price;
+        }
+
+        public void setPrice( double price )
+        {
+            this.price = price;
+        }
+
+        public boolean isAvailable()
+        {
+            return available;
+        }
+
+        public void setAvailable( boolean available )
+        {
+            this.available = available;
+        }
+    }
+}
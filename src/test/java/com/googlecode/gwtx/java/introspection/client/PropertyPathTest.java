@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.IntrospectionException;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class PropertyPathTest
+    extends TestCase
+{
+    public void testGetNestedProperty()
+        throws Exception
+    {
+        Person person = new Person();
+        person.setAddress( new Address() );
+        person.getAddress().setCity( "Paris" );
+
+        PropertyPath path = PropertyPath.compile( Person.class, "address.city" );
+        assertEquals( "Paris", path.get( person ) );
+        assertEquals( String.class, path.getPropertyType() );
+        assertEquals( "address.city", path.getPath() );
+    }
+
+    public void testGetThroughNullIsNull()
+        throws Exception
+    {
+        PropertyPath path = PropertyPath.compile( Person.class, "address.city" );
+        assertNull( path.get( new Person() ) );
+        assertNull( path.get( null ) );
+    }
+
+    public void testSetNestedProperty()
+        throws Exception
+    {
+        Person person = new Person();
+        person.setAddress( new Address() );
+
+        PropertyPath path = PropertyPath.compile( Person.class, "address.city" );
+        assertTrue( path.set( person, "Lyon" ) );
+        assertEquals( "Lyon", person.getAddress().getCity() );
+    }
+
+    public void testSetThroughNullIsIgnored()
+        throws Exception
+    {
+        PropertyPath path = PropertyPath.compile( Person.class, "address.city" );
+        assertFalse( path.set( new Person(), "Lyon" ) );
+    }
+
+    public void testCompiledPathIsCached()
+        throws Exception
+    {
+        assertSame( PropertyPath.compile( Person.class, "address.city" ),
+                    PropertyPath.compile( Person.class, "address.city" ) );
+        assertNotSame( PropertyPath.compile( Person.class, "address" ),
+                       PropertyPath.compile( Person.class, "address.city" ) );
+    }
+
+    public void testUnknownPropertyFails()
+    {
+        try
+        {
+            PropertyPath.compile( Person.class, "address.zip" );
+            fail( "IntrospectionException expected" );
+        }
+        catch ( IntrospectionException e )
+        {
+            // expected
+        }
+    }
+
+    public static class Person
+    {
+        private Address address;
+
+        public Address getAddress()
+        {
+            return address;
+        }
+
+        public void setAddress( Address address )
+        {
+            this.address = address;
+        }
+    }
+
+    public static class Address
+    {
+        private String city;
+
+        public String getCity()
+        {
+            return city;
+        }
+
+        public void setCity( String city )
+        {
+            this.city = city;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.googlecode.gwtx.java.introspection.client;
+
+import java.beans.PropertyDescriptor;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * @author ndeloof
+ */
+public class ReflectionBeanInfoFactoryTest
+    extends TestCase
+{
+    public void testLibraryAndNonBeanClassesAreRejected()
+    {
+        assertNull( ReflectionBeanInfoFactory.lookup( Integer.TYPE ) );
+        assertNull( ReflectionBeanInfoFactory.lookup( String[].class ) );
+        assertNull( ReflectionBeanInfoFactory.lookup( List.class ) );
+        assertNull( ReflectionBeanInfoFactory.lookup( Date.class ) );
+        assertNull( ReflectionBeanInfoFactory.lookup( Color.class ) );
+        assertNull( ReflectionBeanInfoFactory.lookup( Introspectable.class ) );
+        assertNotNull( ReflectionBeanInfoFactory.lookup( Base.class ) );
+    }
+
+    public void testDeclaredProperties()
+        throws Exception
+    {
+        GwtBeanInfo beanInfo = ReflectionBeanInfoFactory.lookup( Base.class ).createBeanInfo();
+        beanInfo.freeze();
+        PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
+        assertEquals( 2, descriptors.length );
+        assertEquals( "active", descriptors[0].getName() );
+        assertEquals( Boolean.TYPE, descriptors[0].getPropertyType() );
+        assertEquals( "id", descriptors[1].getName() );
+        assertEquals( Long.TYPE, descriptors[1].getPropertyType() );
+    }
+
+    public void testInheritedProperties()
+        throws Exception
+    {
+        GwtBeanInfo beanInfo = GwtIntrospector.__getBeanInfo( Child.class );
+        assertNotNull( beanInfo.getPropertyDescriptor( "id" ) );
+        assertNotNull( beanInfo.getPropertyDescriptor( "name" ) );
+
+        Child child = new Child();
+        child.setId( 3 );
+        child.setName( "child" );
+        Map<String, Object> map = GwtIntrospector.toMap( Child.class, child );
+        assertEquals( new Long( 3 ), map.get( "id" ) );
+        assertEquals( "child", map.get( "name" ) );
+    }
+
+    public void testMismatchedSetterIsDropped()
+        throws Exception
+    {
+        GwtBeanInfo beanInfo = GwtIntrospector.__getBeanInfo( Mismatch.class );
+        PropertyDescriptor descriptor = beanInfo.getPropertyDescriptor( "count" );
+        // the first accessor found sets the property type
+        if ( descriptor.getPropertyType() == Integer.TYPE )
+        {
+            assertNotNull( descriptor.getReadMethod() );
+            assertNull( descriptor.getWriteMethod() );
+        }
+        else
+        {
+            assertEquals( String.class, descriptor.getPropertyType() );
+            assertNull( descriptor.getReadMethod() );
+            assertNotNull( descriptor.getWriteMethod() );
+        }
+    }
+
+    public void testIntrospectableSelection()
+        throws Exception
+    {
+        GwtBeanInfo beanInfo = GwtIntrospector.__getBeanInfo( Selected.class );
+        assertNotNull( beanInfo.getPropertyDescriptor( "name" ) );
+        assertNull( beanInfo.getPropertyDescriptor( "secret" ) );
+    }
+
+    public void testFromMapConvertsNumbers()
+        throws Exception
+    {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put( "id", new Integer( 7 ) );
+        Base bean = GwtIntrospector.fromMap( Base.class, map, new Base() );
+        assertEquals( 7, bean.getId() );
+    }
+
+    public enum Color
+    {
+        RED, GREEN
+    }
+
+    public static class Base
+    {
+        private long id;
+
+        private boolean active;
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public void setId( long id )
+        {
+            this.id = id;
+        }
+
+        public boolean isActive()
+        {
+            return active;
+        }
+
+        public void setActive( boolean active )
+        {
+            this.active = active;
+        }
+    }
+
+    public static class Child
+        extends Base
+    {
+        private String name;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+    }
+
+    public static class Mismatch
+    {
+        private int count;
+
+        public int getCount()
+        {
+            return count;
+        }
+
+        public void setCount( String count )
+        {
+            this.count = count.length();
+        }
+    }
+
+    @Introspectable( exclude = "secret" )
+    public static class Selected
+    {
+        private String name;
+
+        private String secret;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        public String getSecret()
+        {
+            return secret;
+        }
+
+        public void setSecret( String secret )
+        {
+            this.secret = secret;
+        }
+    }
+}